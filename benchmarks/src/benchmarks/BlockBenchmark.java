@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import level.Chunk;
+import sprites.BlockStore;
+import world.GameWorld;
+
+/**
+ * Measures the block store: moving the highest row that went off the top of
+ * the screen back to the bottom, and finding the rows next to the circle for
+ * collision. The number of rows can be raised to see how both scale.
+ *
+ * @author Malyq McElroy
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockBenchmark {
+	// Seed for placing the rows, so every run measures the same layout
+	private static final long SEED = 42;
+	// Distance between rows
+	private static final int SPACING = 75;
+	// How many rows are in the store
+	@Param({ "8", "256" })
+	private int rows;
+	// The rows being measured
+	private BlockStore blocks;
+	// Reused collision rectangles
+	private Rectangle left, right;
+	// Where the circle is when looking up rows
+	private float circleY;
+	// The rows are laid out like the first chunk of a level
+	private Chunk chunk;
+
+	@Setup
+	public void setup() {
+		chunk = GameWorld.newLevel(SEED).build(0);
+		blocks = new BlockStore(rows);
+		for (int i = 0; i < rows; i++) {
+			blocks.add(i * SPACING, chunk, i % Chunk.ROWS);
+		}
+		left = new Rectangle();
+		right = new Rectangle();
+		circleY = rows * SPACING / 2;
+	}
+
+	@Benchmark
+	public BlockStore recycleTop() {
+		blocks.recycleTop(blocks.getY(0) - SPACING, chunk, 0);
+		return blocks;
+	}
+
+	@Benchmark
+	public Rectangle findRowsNearCircle() {
+		// The same lookup the world does every tick
+		int i = blocks.firstAbove(circleY);
+		blocks.getBoundsLeft(i, left);
+		return blocks.getBoundsRight(i, right);
+	}
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import sprites.Circle;
+import world.Sweep;
+
+/**
+ * Measures the methods the world calls on the circle every tick: falling,
+ * moving sideways and sweeping its movement against a block.
+ *
+ * @author Malyq McElroy
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircleBenchmark {
+	// Length of one simulation tick
+	private static final float DT = 1f / 120;
+	// The circle being measured
+	private Circle circle;
+	// A block half the circle is resting on, and one far away from it
+	private Rectangle touching, far;
+	// Filled in by the sweeps
+	private Sweep.Hit hit;
+
+	@Setup
+	public void setup() {
+		circle = new Circle(100, 120);
+		touching = new Rectangle(90, 90, 175, 30);
+		far = new Rectangle(90, 400, 175, 30);
+		hit = new Sweep.Hit();
+	}
+
+	@Benchmark
+	public Circle update() {
+		circle.update(DT);
+		// Keep the circle from falling faster forever so every call does the same
+		// work
+		circle.getVelocity().y = 0;
+		circle.clearMove();
+		return circle;
+	}
+
+	@Benchmark
+	public Circle moveLeftAndRight() {
+		circle.moveLeft(DT);
+		circle.moveRight(DT);
+		circle.clearMove();
+		return circle;
+	}
+
+	@Benchmark
+	public boolean sweepTouching() {
+		return Sweep.sweep(circle.getCircleRect(), 1, -1, touching, hit);
+	}
+
+	@Benchmark
+	public boolean sweepFar() {
+		return Sweep.sweep(circle.getCircleRect(), 1, -1, far, hit);
+	}
+}
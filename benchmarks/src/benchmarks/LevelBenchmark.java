@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import level.Chunk;
+import level.LevelGenerator;
+import world.GameWorld;
+
+/**
+ * Measures how long the level generator takes to build a chunk with the
+ * game's patterns. In the game this happens on a background thread, so this is
+ * the cost that would show up in a frame if a chunk ever had to be built on
+ * the spot.
+ *
+ * @author Malyq McElroy
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+	// Seed of the level, so every run measures the same chunks
+	private static final long SEED = 42;
+	// The generator being measured
+	private LevelGenerator level;
+	// Which chunk to build next
+	private int index;
+
+	@Setup
+	public void setup() {
+		level = GameWorld.newLevel(SEED);
+		index = 0;
+	}
+
+	@Benchmark
+	public Chunk buildChunk() {
+		// Walk through the level so every pattern gets to its later chunks
+		return level.build(index++ & 63);
+	}
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.GameWorld;
+import world.PlayerInput;
+
+/**
+ * Measures one full simulation tick: scrolling, speed-ups, block recycling,
+ * the game over check, collision against every block and input. The input
+ * follows a fixed pattern so every run does the same work. When the circle
+ * dies a new world is created, so the cost of starting a run is spread over
+ * the ticks of that run just like in the real game.
+ *
+ * @author Malyq McElroy
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmark {
+	// Seed of every world, so each run of the benchmark plays the same game
+	private static final long SEED = 42;
+	// Length of one simulation tick
+	private static final float DT = 1f / 120;
+	// Buttons held during each stretch of ticks
+	private static final int[] PATTERN = { PlayerInput.LEFT, PlayerInput.NONE, PlayerInput.RIGHT | PlayerInput.JUMP,
+			PlayerInput.RIGHT, PlayerInput.JUMP, PlayerInput.LEFT | PlayerInput.JUMP };
+	// How many ticks each entry of the pattern is held for
+	private static final int HOLD_TICKS = 15;
+	// The world being measured
+	private GameWorld world;
+
+	@Setup
+	public void setup() {
+		world = new GameWorld(SEED);
+	}
+
+	@Benchmark
+	public GameWorld tick() {
+		// Start a new run once the circle dies
+		if (world.isGameOver()) {
+			world = new GameWorld(SEED);
+		}
+		world.tick(DT, PATTERN[(world.getTicks() / HOLD_TICKS) % PATTERN.length]);
+		return world;
+	}
+}
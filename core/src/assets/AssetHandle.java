@@ -0,0 +1,77 @@
+package assets;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * A reference to an asset loaded by the Assets class. Whoever acquires a
+ * handle owns it and has to release it when they are done; the asset itself is
+ * only unloaded once every handle to it has been released.
+ *
+ * @author Malyq McElroy
+ *
+ * @param <T>
+ *            the type of the asset, e.g. Texture
+ */
+public class AssetHandle<T> {
+	// The Assets instance that opened this handle
+	private final Assets assets;
+	// The internal path of the file
+	private final String fileName;
+	// The loaded asset; null once the handle is released
+	private T asset;
+
+	/**
+	 * AssetHandle constructor
+	 *
+	 * @param assets
+	 *            the Assets instance that opened the handle
+	 * @param fileName
+	 *            the internal path of the file
+	 * @param asset
+	 *            the loaded asset
+	 */
+	AssetHandle(Assets assets, String fileName, T asset) {
+		this.assets = assets;
+		this.fileName = fileName;
+		this.asset = asset;
+	}
+
+	/**
+	 *
+	 * @return the loaded asset
+	 */
+	public T get() {
+		// Using an asset after giving it back is always a bug
+		if (asset == null) {
+			throw new GdxRuntimeException("Asset handle already released: " + fileName);
+		}
+		return asset;
+	}
+
+	/**
+	 * Gives the asset back to the Assets class. Calling this more than once does
+	 * nothing.
+	 */
+	public void release() {
+		if (asset != null) {
+			asset = null;
+			assets.release(fileName);
+		}
+	}
+
+	/**
+	 *
+	 * @return true if the handle has already been released
+	 */
+	public boolean isReleased() {
+		return asset == null;
+	}
+
+	/**
+	 *
+	 * @return the internal path of the file
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+}
@@ -0,0 +1,282 @@
+package assets;
+
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.Texture.TextureWrap;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * The Assets class is the one place in the game that loads textures and audio.
+ * It is built on top of libgdx's AssetManager and hands out reference-counted
+ * handles, so every file is decoded and uploaded to the GPU exactly once no
+ * matter how many sprites or states use it. The game's own files are queued
+ * when the game starts and pinned once they are loaded, which means switching
+ * states (for example pressing Retry) never has to load anything again.
+ *
+ * Files are loaded on the AssetManager's background loader, a slice of time
+ * each frame (see update()), so the screen keeps drawing while they load.
+ * acquire() still loads a file on the spot if nobody queued it first.
+ *
+ * The gameplay sprites are scaled down to the size they are drawn at and
+ * packed into a single texture atlas while building (see the resizeTextures
+ * and packTextures tasks in core/build.gradle), so the game screen only binds
+ * two textures: the atlas and the opaque space backdrop, which is kept apart so
+ * it can repeat. The sprites are looked up by their region names. Files are
+ * found through a VariantFileResolver, which loads the ETC1 copy of the
+ * backdrop on devices that support it.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class Assets implements Disposable {
+	// File name of the atlas holding every gameplay sprite
+	public static final String ATLAS = "gameplay.atlas";
+	// File name of the space backdrop drawn behind everything
+	public static final String BACKDROP = "backdrop.png";
+	// The backdrop scrolls by moving its texture coordinates, so its texture
+	// repeats. Mirroring every other copy hides the seams.
+	public static final TextureParameter BACKDROP_PARAMETERS = new TextureParameter();
+	static {
+		BACKDROP_PARAMETERS.genMipMaps = true;
+		BACKDROP_PARAMETERS.minFilter = TextureFilter.MipMapNearestNearest;
+		BACKDROP_PARAMETERS.magFilter = TextureFilter.Nearest;
+		BACKDROP_PARAMETERS.wrapU = TextureWrap.MirroredRepeat;
+		BACKDROP_PARAMETERS.wrapV = TextureWrap.MirroredRepeat;
+	}
+	// Region names of the sprites in the atlas; the same as the names of the
+	// images in android/assets-raw/gameplay
+	public static final String SUN = "newSun";
+	public static final String DASHES = "dashes";
+	public static final String BLOCK = "greenBar";
+	public static final String CIRCLE = "redCircle";
+	public static final String SPIKE = "spike";
+	public static final String FIRE = "fire";
+	public static final String PARTICLE = "particle";
+	// File names of the audio used by the game
+	public static final String JUMP_SOUND = "jumpSound.ogg";
+	public static final String GAME_OVER_SOUND = "gameOver.ogg";
+	public static final String BACKGROUND_MUSIC = "bgMusic.ogg";
+	// Sounds that are loaded when the game starts
+	private static final String[] SOUNDS = { JUMP_SOUND, GAME_OVER_SOUND };
+	// Music that is loaded when the game starts
+	private static final String[] MUSIC = { BACKGROUND_MUSIC };
+	// The libgdx class that actually loads and disposes the files
+	private final AssetManager manager;
+	// How many handles are currently open for each file
+	private final ObjectIntMap<String> references;
+	// Handles held by this class so the preloaded files are never unloaded
+	private final Array<AssetHandle<?>> pinned;
+	// Files queued on the AssetManager that haven't finished loading yet
+	private final ObjectSet<String> queued;
+	// True once preload() was called and its files still have to be pinned
+	private boolean pinPending = false;
+	// How many times a file has been read from disk since the game started
+	private int loads = 0;
+
+	/**
+	 * Assets constructor
+	 */
+	public Assets() {
+		this(new AssetManager(new VariantFileResolver()));
+	}
+
+	/**
+	 * Assets constructor
+	 *
+	 * @param manager
+	 *            the AssetManager used to load the files
+	 */
+	public Assets(AssetManager manager) {
+		this.manager = manager;
+		references = new ObjectIntMap<String>();
+		pinned = new Array<AssetHandle<?>>();
+		queued = new ObjectSet<String>();
+	}
+
+	/**
+	 * Queues every texture and sound the game uses. Once update() has loaded them
+	 * a reference to each is kept for the whole life of the game.
+	 */
+	public void preload() {
+		// Queue all of the files so the AssetManager can load them in one go
+		queue(ATLAS, TextureAtlas.class);
+		queue(BACKDROP, Texture.class, BACKDROP_PARAMETERS);
+		for (String fileName : SOUNDS) {
+			queue(fileName, Sound.class);
+		}
+		for (String fileName : MUSIC) {
+			queue(fileName, Music.class);
+		}
+		pinPending = true;
+	}
+
+	/**
+	 * Adds a file to the AssetManager's queue unless it is already loaded or
+	 * queued. Nothing is read until update() is called.
+	 *
+	 * @param fileName
+	 *            the internal path of the file
+	 * @param type
+	 *            the class of the asset, e.g. Texture.class
+	 */
+	public <T> void queue(String fileName, Class<T> type) {
+		queue(fileName, type, null);
+	}
+
+	/**
+	 * Adds a file to the AssetManager's queue unless it is already loaded or
+	 * queued
+	 *
+	 * @param fileName
+	 *            the internal path of the file
+	 * @param type
+	 *            the class of the asset, e.g. Texture.class
+	 * @param parameters
+	 *            how to load the file, e.g. BACKDROP_PARAMETERS, or null for the
+	 *            defaults
+	 */
+	public <T> void queue(String fileName, Class<T> type, AssetLoaderParameters<T> parameters) {
+		if (!manager.isLoaded(fileName, type) && queued.add(fileName)) {
+			manager.load(fileName, type, parameters);
+			loads++;
+		}
+	}
+
+	/**
+	 * Loads queued files for at most a slice of time. Loading a single file can
+	 * take longer than the slice, but the AssetManager decodes on its own thread
+	 * and only uploads to the GPU here.
+	 *
+	 * @param millis
+	 *            roughly how long to spend loading
+	 * @return true once every queued file is loaded
+	 */
+	public boolean update(int millis) {
+		if (!manager.update(millis)) {
+			return false;
+		}
+		queued.clear();
+		if (pinPending) {
+			pinPending = false;
+			pin();
+		}
+		return true;
+	}
+
+	/**
+	 * Holds on to one handle per preloaded file so they are never unloaded when a
+	 * state releases its own handles
+	 */
+	private void pin() {
+		pinned.add(acquire(ATLAS, TextureAtlas.class));
+		pinned.add(acquire(BACKDROP, Texture.class));
+		for (String fileName : SOUNDS) {
+			pinned.add(acquire(fileName, Sound.class));
+		}
+		for (String fileName : MUSIC) {
+			pinned.add(acquire(fileName, Music.class));
+		}
+	}
+
+	/**
+	 * Opens a handle to a file, loading it first if nobody else is using it
+	 *
+	 * @param fileName
+	 *            the internal path of the file
+	 * @param type
+	 *            the class of the asset, e.g. Texture.class
+	 * @return a handle that must be released once the caller is done with it
+	 */
+	public <T> AssetHandle<T> acquire(String fileName, Class<T> type) {
+		// Only read the file if it isn't already in memory
+		if (!manager.isLoaded(fileName, type)) {
+			// Wait for it if it was queued, otherwise load it now
+			if (queued.add(fileName)) {
+				manager.load(fileName, type);
+				loads++;
+			}
+			manager.finishLoadingAsset(fileName);
+			queued.remove(fileName);
+		}
+		// Count the new handle
+		references.getAndIncrement(fileName, 0, 1);
+		return new AssetHandle<T>(this, fileName, manager.get(fileName, type));
+	}
+
+	/**
+	 * Called by a handle when it is released. Once the last handle to a file is
+	 * released the file is unloaded.
+	 *
+	 * @param fileName
+	 *            the internal path of the file
+	 */
+	void release(String fileName) {
+		// Count down the handles to this file
+		int count = references.getAndIncrement(fileName, 0, -1) - 1;
+		// Nobody is using the file anymore so it can be unloaded
+		if (count <= 0) {
+			references.remove(fileName, 0);
+			manager.unload(fileName);
+		}
+	}
+
+	/**
+	 * Clean up any disposable objects
+	 */
+	@Override
+	public void dispose() {
+		// Release the pinned handles then let the AssetManager dispose anything left
+		for (AssetHandle<?> handle : pinned) {
+			handle.release();
+		}
+		pinned.clear();
+		references.clear();
+		queued.clear();
+		manager.dispose();
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @param fileName
+	 *            the internal path of the file
+	 * @return how many handles are currently open for the file
+	 */
+	public int getReferenceCount(String fileName) {
+		return references.get(fileName, 0);
+	}
+
+	/**
+	 *
+	 * @return how many times a file has been read from disk
+	 */
+	public int getLoads() {
+		return loads;
+	}
+
+	/**
+	 *
+	 * @return how much of what was queued has been loaded, from 0 to 1
+	 */
+	public float getProgress() {
+		return manager.getProgress();
+	}
+
+	/**
+	 *
+	 * @return the AssetManager used to load the files
+	 */
+	public AssetManager getManager() {
+		return manager;
+	}
+}
@@ -0,0 +1,50 @@
+package assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Picks which copy of a texture to load. The build makes an ETC1 copy of some
+ * textures (see the compressTextures task in core/build.gradle) next to the
+ * .png, e.g. backdrop.zktx beside backdrop.png. ETC1 textures take an
+ * eighth of the memory of RGBA ones and come with their mipmaps already made,
+ * but a GPU without ETC1 support would have to decode them on the CPU, so the
+ * compressed copy is only used where the GPU can draw it directly. Everything
+ * else is loaded as it is named.
+ *
+ * Because the AssetManager asks this class for every file, including the pages
+ * of a texture atlas, the states keep asking for the same names whichever copy
+ * is loaded.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class VariantFileResolver implements FileHandleResolver {
+	// The extension a GPU has to support to draw ETC1 textures
+	private static final String ETC1_EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+	// Extension of the compressed copies
+	private static final String COMPRESSED = ".zktx";
+	// Whether the GPU supports ETC1
+	private final boolean etc1;
+
+	/**
+	 * VariantFileResolver constructor. Asks the GPU whether it can draw ETC1
+	 * textures, so it must be created on the GL thread; the AssetManager calls
+	 * resolve() from its loading thread too, where GL can't be used.
+	 */
+	public VariantFileResolver() {
+		etc1 = Gdx.graphics.supportsExtension(ETC1_EXTENSION);
+	}
+
+	@Override
+	public FileHandle resolve(String fileName) {
+		if (fileName.endsWith(".png") && etc1) {
+			FileHandle compressed = Gdx.files.internal(fileName.substring(0, fileName.length() - 4) + COMPRESSED);
+			if (compressed.exists()) {
+				return compressed;
+			}
+		}
+		return Gdx.files.internal(fileName);
+	}
+}
@@ -0,0 +1,262 @@
+package audio;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import assets.AssetHandle;
+import assets.Assets;
+
+/**
+ * The one place the game plays audio from. It is created once when the game
+ * starts and shared by every state, so sounds are decoded once and the music
+ * stream is opened once for the whole game.
+ *
+ * Every sound is registered with the most voices of it that may play at once.
+ * When a sound is played and all of its voices are busy, the voice with the
+ * lowest priority (the oldest one if there is a tie) is stopped to make room,
+ * unless every voice has a higher priority than the new one, in which case the
+ * new one is dropped. That keeps e.g. a burst of jumps from piling up voices
+ * and keeps the cost of mixing bounded.
+ *
+ * A sound is only looked up the first time it is played, so registering it
+ * doesn't wait for the file if it is still loading.
+ *
+ * libgdx doesn't say when a voice finishes, so each sound is registered with
+ * its length and a voice counts as busy until that much time has passed.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class AudioService implements Disposable {
+	// Priorities of a sound; a voice can only be stolen by a sound of the same or
+	// a higher priority
+	public static final int PRIORITY_LOW = 0;
+	public static final int PRIORITY_NORMAL = 1;
+	public static final int PRIORITY_HIGH = 2;
+
+	/**
+	 * The voices of one sound
+	 */
+	private static class Channel {
+		// The decoded sound, or null until it is first played
+		Sound sound;
+		// How long one voice of the sound lasts in nanoseconds
+		final long length;
+		// The id libgdx gave each voice, or -1 if the voice is free
+		final long[] ids;
+		// The priority each voice was played with
+		final int[] priorities;
+		// When each voice will have finished
+		final long[] ends;
+
+		Channel(int maxVoices, float seconds) {
+			length = (long) (seconds * 1e9);
+			ids = new long[maxVoices];
+			priorities = new int[maxVoices];
+			ends = new long[maxVoices];
+			Arrays.fill(ids, -1);
+		}
+	}
+
+	// Where the sounds and music are loaded from
+	private final Assets assets;
+	// Handles to everything the service plays, released in dispose()
+	private final Array<AssetHandle<?>> handles;
+	// The voices of every registered sound, by file name
+	private final ObjectMap<String, Channel> channels;
+	// The music that is playing or paused, or null
+	private Music music;
+	// File name of that music
+	private String musicName;
+	// How many sounds were dropped or stopped early to stay under the voice caps
+	private int stolen = 0;
+	private int dropped = 0;
+
+	/**
+	 * AudioService constructor
+	 *
+	 * @param assets
+	 *            where the sounds and music are loaded from
+	 */
+	public AudioService(Assets assets) {
+		this.assets = assets;
+		handles = new Array<AssetHandle<?>>();
+		channels = new ObjectMap<String, Channel>();
+	}
+
+	/**
+	 * Makes a sound playable
+	 *
+	 * @param fileName
+	 *            the internal path of the sound
+	 * @param maxVoices
+	 *            the most voices of the sound that may play at once
+	 * @param seconds
+	 *            how long the sound lasts
+	 */
+	public void register(String fileName, int maxVoices, float seconds) {
+		channels.put(fileName, new Channel(maxVoices, seconds));
+	}
+
+	/**
+	 * Plays a sound if one of its voices is free or can be stolen
+	 *
+	 * @param fileName
+	 *            the internal path of a registered sound
+	 * @param volume
+	 *            the volume, from 0 to 1
+	 * @param priority
+	 *            how important the sound is, e.g. PRIORITY_NORMAL
+	 * @return the id of the voice, or -1 if the sound wasn't played
+	 */
+	public long play(String fileName, float volume, int priority) {
+		Channel channel = channels.get(fileName);
+		if (channel == null) {
+			throw new GdxRuntimeException("Sound isn't registered: " + fileName);
+		}
+		// Open the sound the first time it is played
+		if (channel.sound == null) {
+			AssetHandle<Sound> handle = assets.acquire(fileName, Sound.class);
+			handles.add(handle);
+			channel.sound = handle.get();
+		}
+		long now = TimeUtils.nanoTime();
+		// Pick a free voice, or else the least important one that is playing
+		int voice = -1;
+		for (int i = 0; i < channel.ids.length; i++) {
+			if (channel.ids[i] == -1 || channel.ends[i] <= now) {
+				voice = i;
+				break;
+			}
+			if (voice == -1 || channel.priorities[i] < channel.priorities[voice]
+					|| (channel.priorities[i] == channel.priorities[voice] && channel.ends[i] < channel.ends[voice])) {
+				voice = i;
+			}
+		}
+		if (channel.ids[voice] != -1 && channel.ends[voice] > now) {
+			// Every voice is busy with something more important
+			if (channel.priorities[voice] > priority) {
+				dropped++;
+				return -1;
+			}
+			// Make room by stopping the chosen voice
+			channel.sound.stop(channel.ids[voice]);
+			stolen++;
+		}
+		long id = channel.sound.play(volume);
+		channel.ids[voice] = id;
+		channel.priorities[voice] = priority;
+		channel.ends[voice] = now + channel.length;
+		return id;
+	}
+
+	/**
+	 * Plays looping music. If the same music is already playing or paused it
+	 * carries on from where it was instead of opening the stream again.
+	 *
+	 * @param fileName
+	 *            the internal path of the music
+	 * @param volume
+	 *            the volume, from 0 to 1
+	 */
+	public void playMusic(String fileName, float volume) {
+		if (!fileName.equals(musicName)) {
+			stopMusic();
+			AssetHandle<Music> handle = assets.acquire(fileName, Music.class);
+			handles.add(handle);
+			music = handle.get();
+			musicName = fileName;
+			music.setLooping(true);
+		}
+		music.setVolume(volume);
+		if (!music.isPlaying()) {
+			music.play();
+		}
+	}
+
+	/**
+	 * Pauses the music. Unlike stopping it, the stream stays open so playing it
+	 * again doesn't have to reopen and decode the file from the start.
+	 */
+	public void pauseMusic() {
+		if (music != null) {
+			music.pause();
+		}
+	}
+
+	/**
+	 * Carries on playing paused music
+	 */
+	public void resumeMusic() {
+		if (music != null && !music.isPlaying()) {
+			music.play();
+		}
+	}
+
+	/**
+	 * Stops the music for good
+	 */
+	public void stopMusic() {
+		if (music != null) {
+			music.stop();
+			music = null;
+			musicName = null;
+		}
+	}
+
+	/**
+	 * Stops every voice of every sound
+	 */
+	public void stopSounds() {
+		for (Channel channel : channels.values()) {
+			if (channel.sound == null) {
+				continue;
+			}
+			channel.sound.stop();
+			for (int i = 0; i < channel.ids.length; i++) {
+				channel.ids[i] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Clean up any disposable objects
+	 */
+	@Override
+	public void dispose() {
+		stopSounds();
+		stopMusic();
+		// The sounds and music belong to the Assets; just let go of them
+		for (AssetHandle<?> handle : handles) {
+			handle.release();
+		}
+		handles.clear();
+		channels.clear();
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many voices were stopped early to make room for another
+	 */
+	public int getStolen() {
+		return stolen;
+	}
+
+	/**
+	 *
+	 * @return how many sounds weren't played because every voice was busy with
+	 *         something more important
+	 */
+	public int getDropped() {
+		return dropped;
+	}
+}
@@ -0,0 +1,338 @@
+package bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import world.GameWorld;
+import world.PlayerInput;
+
+/**
+ * A bot that plays the game, used for attract mode and for long unattended
+ * performance runs. Every few ticks it copies the world being played and,
+ * for each of the moves it could make, simulates a number of short random
+ * futures that start with that move. The move whose futures survive longest
+ * on average, and end furthest from the dashes, is held until the next
+ * decision.
+ *
+ * The futures run in parallel on a pool with one thread per core. Each one
+ * plays out in its own copy of the world, and the snapshot they copy from is
+ * only read while they run, so nothing they touch is shared with the world
+ * being played or with each other. Every future has its own seed derived from
+ * the decision and the move, so the bot makes the same decisions on any
+ * machine no matter how the futures are scheduled.
+ *
+ * A decision can be given a time budget so the bot never holds up the frame
+ * it is decided in. Futures still running when the budget is spent stop where
+ * they are and are left out of the scores, so a slow machine makes the bot
+ * look less far ahead instead of making the game stutter. Only a bot without
+ * a budget is sure to decide the same way on every machine.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class AutoPlayer implements Disposable {
+	// The moves tried at each decision
+	private static final int[] MOVES = { PlayerInput.NONE, PlayerInput.LEFT, PlayerInput.RIGHT, PlayerInput.JUMP,
+			PlayerInput.LEFT | PlayerInput.JUMP, PlayerInput.RIGHT | PlayerInput.JUMP };
+	// Longest a decision of the game's own bot may take, in milliseconds; about
+	// half a tick, leaving the rest for simulating and drawing the frame
+	public static final float DEFAULT_BUDGET_MILLIS = 4;
+	// How many ticks a future simulates between looks at the clock
+	private static final int CHECK_TICKS = 32;
+
+	/**
+	 * One simulated future. Owns the world it plays out in so it can run on any
+	 * thread. Returns null if the decision's budget ran out before it finished.
+	 */
+	private class Rollout implements Callable<Float> {
+		// The move the future starts with
+		final int move;
+		// Which of the futures of that move this is
+		final int index;
+		// The world the future is played out in, made the first time it runs
+		GameWorld scratch;
+		// Picks the moves after the first one
+		final Random rand = new Random();
+
+		Rollout(int move, int index) {
+			this.move = move;
+			this.index = index;
+		}
+
+		@Override
+		public Float call() {
+			if (System.nanoTime() > deadline) {
+				return null;
+			}
+			if (scratch == null || scratch.getSeed() != snapshot.getSeed()) {
+				scratch = new GameWorld(snapshot.getSeed());
+			}
+			scratch.set(snapshot);
+			rand.setSeed(decisions * 0x9E3779B97F4A7C15L + move * 31 + index);
+			// Start with the move being judged, then change moves at random as often
+			// as the bot itself would
+			int input = MOVES[move];
+			int t = 0;
+			while (t < horizon && !scratch.isGameOver()) {
+				if (t > 0 && t % interval == 0) {
+					input = MOVES[rand.nextInt(MOVES.length)];
+				}
+				// Give up once the decision is out of time
+				if (t % CHECK_TICKS == CHECK_TICKS - 1 && System.nanoTime() > deadline) {
+					return null;
+				}
+				scratch.tick(dt, input);
+				t++;
+			}
+			// A future that ends the game is worth the ticks it lasted; one that
+			// survives is worth more, and more still the further the circle is from
+			// the dashes
+			if (scratch.isGameOver()) {
+				return (float) t;
+			}
+			return horizon + scratch.getDeathMargin() / GameWorld.VIEW_HEIGHT;
+		}
+	}
+
+	// Length of a tick in seconds
+	private final float dt;
+	// How many ticks each move is held for before deciding again
+	private final int interval;
+	// How many ticks each future is simulated for
+	private final int horizon;
+	// Runs the futures
+	private final ExecutorService pool;
+	// Every future tried at a decision, grouped by move
+	private final List<Rollout> rollouts;
+	// How many futures are tried for each move
+	private final int perMove;
+	// Longest a decision may take in nanoseconds, or 0 for no limit
+	private final long budget;
+	// When the futures of the current decision have to stop; read by the pool
+	private volatile long deadline = Long.MAX_VALUE;
+	// Copy of the world being played, taken at each decision
+	private GameWorld snapshot;
+	// The move being held and how many more ticks to hold it for
+	private int input = PlayerInput.NONE;
+	private int holdTicks = 0;
+	// How many decisions have been made and how long they took in total
+	private long decisions = 0;
+	private long decisionNanos = 0;
+	// How many ticks the futures have simulated in total
+	private long simulatedTicks = 0;
+	// How many futures were cut short by the budget
+	private long cutRollouts = 0;
+
+	/**
+	 * Makes a bot that decides every 12 ticks, tries 8 futures of 480 ticks (4
+	 * seconds at 120 ticks a second) for each move, and uses one thread per core.
+	 * Deciding less often but looking further ahead plays much better than the
+	 * other way around, since the futures change moves as often as the bot does.
+	 * Each decision gets DEFAULT_BUDGET_MILLIS.
+	 *
+	 * @param dt
+	 *            the length of a tick in seconds
+	 */
+	public AutoPlayer(float dt) {
+		this(dt, 12, 8, 480, Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_MILLIS);
+	}
+
+	/**
+	 * AutoPlayer constructor
+	 *
+	 * @param dt
+	 *            the length of a tick in seconds
+	 * @param interval
+	 *            how many ticks each move is held for before deciding again
+	 * @param perMove
+	 *            how many futures are tried for each move
+	 * @param horizon
+	 *            how many ticks each future is simulated for
+	 * @param threads
+	 *            how many threads simulate futures
+	 * @param budgetMillis
+	 *            longest a decision may take in milliseconds, or 0 for no limit
+	 */
+	public AutoPlayer(float dt, int interval, int perMove, int horizon, int threads, float budgetMillis) {
+		this.dt = dt;
+		this.interval = interval;
+		this.perMove = perMove;
+		this.horizon = horizon;
+		budget = (long) (budgetMillis * 1e6);
+		pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "autoplayer-" + count++);
+				// Never keep the game from exiting
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		rollouts = new ArrayList<Rollout>(MOVES.length * perMove);
+		for (int move = 0; move < MOVES.length; move++) {
+			for (int i = 0; i < perMove; i++) {
+				rollouts.add(new Rollout(move, i));
+			}
+		}
+	}
+
+	/**
+	 * Picks the buttons to hold for the next tick of a world
+	 *
+	 * @param world
+	 *            the world being played; only read, and only on this thread
+	 * @return the buttons, see PlayerInput
+	 */
+	public int nextInput(GameWorld world) {
+		if (holdTicks > 0) {
+			holdTicks--;
+			return input;
+		}
+		long start = System.nanoTime();
+		// Take the snapshot the futures copy from
+		if (snapshot == null || snapshot.getSeed() != world.getSeed()) {
+			snapshot = new GameWorld(world.getSeed());
+		}
+		snapshot.set(world);
+		// Keep the last move if no future finished in time
+		int move = search(start);
+		if (move >= 0) {
+			input = MOVES[move];
+		}
+		holdTicks = interval - 1;
+		decisions++;
+		decisionNanos += System.nanoTime() - start;
+		return input;
+	}
+
+	/**
+	 * Runs every future and finds the move whose finished futures have the best
+	 * average. Every future stops by itself once the budget is spent, so
+	 * invokeAll() returns soon after it and no future is still running when the
+	 * next decision reuses its world.
+	 *
+	 * @param start
+	 *            when the decision started, on the System.nanoTime() clock
+	 * @return the index of the best move in MOVES, or -1 if no future finished
+	 */
+	private int search(long start) {
+		deadline = budget > 0 ? start + budget : Long.MAX_VALUE;
+		List<Future<Float>> results;
+		try {
+			results = pool.invokeAll(rollouts);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 0;
+		}
+		int best = -1;
+		float bestValue = Float.NEGATIVE_INFINITY;
+		for (int move = 0; move < MOVES.length; move++) {
+			float value = 0;
+			int finished = 0;
+			for (int i = 0; i < perMove; i++) {
+				Float result = get(results.get(move * perMove + i));
+				if (result == null) {
+					cutRollouts++;
+					continue;
+				}
+				value += result;
+				finished++;
+			}
+			if (finished == 0) {
+				continue;
+			}
+			value /= finished;
+			// Ties go to the earlier move, so the bot stays still rather than
+			// jumping for no reason
+			if (value > bestValue) {
+				best = move;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Reads the value of a future and counts the ticks it simulated
+	 *
+	 * @param result
+	 *            the result of a rollout
+	 * @return its value, or null if it ran out of time
+	 */
+	private Float get(Future<Float> result) {
+		try {
+			Float value = result.get();
+			if (value != null) {
+				simulatedTicks += Math.min(value.longValue(), horizon);
+			}
+			return value;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new GdxRuntimeException("A rollout failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the threads
+	 */
+	@Override
+	public void dispose() {
+		pool.shutdownNow();
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many decisions have been made
+	 */
+	public long getDecisions() {
+		return decisions;
+	}
+
+	/**
+	 *
+	 * @return how long a decision has taken on average, in milliseconds
+	 */
+	public double getAverageDecisionMillis() {
+		return decisions == 0 ? 0 : decisionNanos / 1e6 / decisions;
+	}
+
+	/**
+	 *
+	 * @return how many ticks the futures have simulated in total
+	 */
+	public long getSimulatedTicks() {
+		return simulatedTicks;
+	}
+
+	/**
+	 *
+	 * @return how many futures were cut short by the budget
+	 */
+	public long getCutRollouts() {
+		return cutRollouts;
+	}
+
+	/**
+	 *
+	 * @return how many ticks each move is held for
+	 */
+	public int getInterval() {
+		return interval;
+	}
+}
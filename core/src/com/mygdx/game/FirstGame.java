@@ -1,13 +1,32 @@
 package com.mygdx.game;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.util.UUID;
+
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
+import assets.Assets;
+import audio.AudioService;
+import bot.AutoPlayer;
+import debug.CsvFrameWriter;
+import debug.FrameProfiler;
+import debug.ProfilerOverlay;
+import leaderboard.LeaderboardClient;
 import states.GameStateManager;
 import states.MenuState;
+import states.PlayState;
+import stats.RunHistory;
+import ui.UiRuntime;
+import world.Replay;
 
 /**
  * The main class generated by libgdx that handles rendering
@@ -23,8 +42,116 @@ public class FirstGame extends ApplicationAdapter {
 	public static final int HEIGHT = 800;
 	// Create the title of the game
 	public static final String title = "Falling Up";
+	// The simulation always advances in ticks of the same length so the game
+	// plays the same at any frame rate
+	public static final int TICK_RATE = 120;
+	public static final float TIME_STEP = 1f / TICK_RATE;
+	// Longest frame we try to catch up on; anything longer (e.g. a breakpoint) is
+	// dropped instead of running hundreds of ticks at once
+	private static final float MAX_FRAME_TIME = .25f;
+	// Key that shows and hides the profiler overlay
+	private static final int PROFILER_KEY = Input.Keys.F3;
 	// Create a GameStateManager to transfer between states
 	private GameStateManager gsm;
+	// Loads every texture and sound once and shares them between states
+	private Assets assets;
+	// Skin, stage and font shared by every menu
+	private UiRuntime ui;
+	// Plays the sounds and music for every state
+	private AudioService audio;
+	// Where the player's best scores and past runs are saved
+	public static final String HISTORY_FILE = "history/runs.journal";
+	// The player's best scores and past runs
+	private RunHistory history;
+	// Where runs that haven't reached the leaderboard yet are kept
+	public static final String LEADERBOARD_QUEUE_FILE = "history/leaderboard.queue";
+	// Where runs are sent, or null to keep them offline
+	private URL leaderboardUrl;
+	// Sends runs to the leaderboard, if there is one
+	private LeaderboardClient leaderboard;
+	// Time that has passed but hasn't been simulated yet
+	private float accumulator = 0;
+	// A recording to watch instead of opening the menu, or null
+	private final Replay replay;
+	// Whether a bot plays instead of opening the menu
+	private boolean autoPlay = false;
+	// Whether states surviving a transition are reported
+	private boolean trackLeaks = false;
+	// The bot, while it is playing
+	private AutoPlayer bot;
+	// Times the phases of each frame
+	private FrameProfiler profiler;
+	// Counts GL calls while profiling
+	private GLProfiler glProfiler;
+	// Shows the profiler's numbers over the game
+	private ProfilerOverlay overlay;
+	private boolean showOverlay = false;
+	// Where every frame's numbers are written, or null
+	private Writer frameLogOut;
+	private CsvFrameWriter frameLog;
+
+	/**
+	 * Starts the game at the main menu
+	 */
+	public FirstGame() {
+		this(null);
+	}
+
+	/**
+	 * Starts the game by playing back a recording
+	 * 
+	 * @param replay
+	 *            the recording to watch, or null to open the main menu
+	 */
+	public FirstGame(Replay replay) {
+		this.replay = replay;
+	}
+
+	/**
+	 * Writes the profiler's numbers for every frame to a CSV file. Must be called
+	 * before the game starts.
+	 * 
+	 * @param out
+	 *            where the lines go; closed when the game exits
+	 */
+	public void setFrameLog(Writer out) {
+		frameLogOut = out;
+	}
+
+	/**
+	 * Lets a bot play the game over and over instead of opening the menu, e.g.
+	 * for attract mode or long performance runs. Must be called before the game
+	 * starts.
+	 * 
+	 * @param enabled
+	 *            true to let the bot play
+	 */
+	public void setAutoPlay(boolean enabled) {
+		autoPlay = enabled;
+	}
+
+	/**
+	 * Sends every run the player finishes to an online leaderboard. Must be
+	 * called before the game starts.
+	 *
+	 * @param url
+	 *            where runs are POSTed, or null to keep them offline
+	 */
+	public void setLeaderboard(URL url) {
+		leaderboardUrl = url;
+	}
+
+	/**
+	 * Reports every state that survives a transition without being disposed,
+	 * and after every transition logs what the live states are holding on to.
+	 * Must be called before the game starts.
+	 *
+	 * @param enabled
+	 *            true to track leaks
+	 */
+	public void setLeakTracking(boolean enabled) {
+		trackLeaks = enabled;
+	}
 	
 	/**
 	 * Auto-generated by libgdx
@@ -33,12 +160,63 @@ public class FirstGame extends ApplicationAdapter {
 	public void create () {
 		// Initialize the batch
 		batch = new SpriteBatch();
+		// Queue all of the game's assets up front so states never load them again.
+		// They load a slice at a time while the first state is loading.
+		assets = new Assets();
+		assets.preload();
+		// Build the UI once; the stage draws with our batch
+		ui = new UiRuntime(batch);
+		// Share the decoded sounds between states; each is opened the first time it
+		// plays, after it has loaded. A jump is a quarter of a second
+		// long, so two voices are plenty even when jumping as fast as possible.
+		audio = new AudioService(assets);
+		audio.register(Assets.JUMP_SOUND, 2, .25f);
+		audio.register(Assets.GAME_OVER_SOUND, 1, 1.05f);
+		// Read the saved runs; they are saved again on a background thread
+		history = new RunHistory(Gdx.files.local(HISTORY_FILE).file());
 		// Initialize the GameStateManager
-		gsm = new GameStateManager();
+		gsm = new GameStateManager(assets, ui, audio, history);
+		// Start sending runs to the leaderboard, as a player id made up the first
+		// time the game ran
+		if (leaderboardUrl != null) {
+			Preferences prefs = Gdx.app.getPreferences(title);
+			String player = prefs.getString("player", null);
+			if (player == null) {
+				player = UUID.randomUUID().toString();
+				prefs.putString("player", player);
+				prefs.flush();
+			}
+			leaderboard = new LeaderboardClient(leaderboardUrl, player,
+					Gdx.files.local(LEADERBOARD_QUEUE_FILE).file());
+			gsm.setLeaderboard(leaderboard);
+		}
+		// Report any state that survives a transition without being disposed
+		gsm.setLeakTracking(trackLeaks);
+		// Set up the profiler; it only measures while the overlay is shown or a
+		// frame log is being written
+		profiler = gsm.getProfiler();
+		glProfiler = new GLProfiler(Gdx.graphics);
+		overlay = new ProfilerOverlay(profiler, ui.getFont());
+		if (frameLogOut != null) {
+			try {
+				frameLog = new CsvFrameWriter(frameLogOut);
+			} catch (IOException e) {
+				throw new GdxRuntimeException("Couldn't write the frame log", e);
+			}
+			profiler.setListener(frameLog);
+		}
+		updateProfiling();
 		// Set the background color
 		Gdx.gl.glClearColor(1, 0, 0, 1);
-		// Push a menu state onto the stack to begin
-		gsm.push(new MenuState(gsm));
+		// Load a menu state to begin, or go straight to the replay or the bot
+		if (autoPlay && replay == null) {
+			bot = new AutoPlayer(TIME_STEP);
+		}
+		if (replay != null || bot != null) {
+			gsm.load(PlayState.factory(replay, bot), 0);
+		} else {
+			gsm.load(MenuState.FACTORY, 0);
+		}
 	}
 
 	/**
@@ -46,16 +224,113 @@ public class FirstGame extends ApplicationAdapter {
 	 */
 	@Override
 	public void render () {
+		profiler.beginFrame();
+		batch.totalRenderCalls = 0;
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-		gsm.update(Gdx.graphics.getDeltaTime());
-		gsm.render(batch);
+		// Add this frame's time to whatever wasn't simulated last frame
+		float delta = Math.min(Gdx.graphics.getDeltaTime(), MAX_FRAME_TIME);
+		accumulator += delta;
+		profiler.start(FrameProfiler.UPDATE);
+		// Load a slice of the next state's files, if one is on its way
+		gsm.updateTransition(delta);
+		// Run as many fixed ticks as fit; a slow frame runs several. Each tick
+		// ends as long before now as the time left over after it, which lets
+		// input events be matched to the tick they happened in.
+		long now = System.nanoTime();
+		while (accumulator >= TIME_STEP) {
+			accumulator -= TIME_STEP;
+			gsm.update(TIME_STEP, now - (long) (accumulator * 1e9));
+		}
+		profiler.stop(FrameProfiler.UPDATE);
+		// Draw everything part of the way towards the next tick
+		profiler.start(FrameProfiler.RENDER);
+		gsm.render(batch, accumulator / TIME_STEP);
+		profiler.stop(FrameProfiler.RENDER);
+		// Read the counters of the frame before the overlay adds to them
+		if (profiler.isEnabled()) {
+			profiler.setCounter(FrameProfiler.RENDER_CALLS, batch.totalRenderCalls);
+			profiler.setCounter(FrameProfiler.GL_CALLS, glProfiler.getCalls());
+			profiler.setCounter(FrameProfiler.DRAW_CALLS, glProfiler.getDrawCalls());
+			profiler.setCounter(FrameProfiler.TEXTURE_BINDINGS, glProfiler.getTextureBindings());
+			profiler.setCounter(FrameProfiler.SHADER_SWITCHES, glProfiler.getShaderSwitches());
+		}
+		profiler.endFrame();
+		// Show or hide the profiler
+		if (Gdx.input.isKeyJustPressed(PROFILER_KEY)) {
+			showOverlay = !showOverlay;
+			updateProfiling();
+		}
+		if (showOverlay) {
+			overlay.draw(batch, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		}
+		// Start counting the next frame only now, so the overlay's own GL calls
+		// are left out of both this frame and the next
+		glProfiler.reset();
+	}
+
+	/**
+	 * Only measure while someone is looking at the numbers
+	 */
+	private void updateProfiling () {
+		boolean enabled = showOverlay || frameLog != null;
+		profiler.setEnabled(enabled);
+		if (enabled) {
+			glProfiler.enable();
+		} else {
+			glProfiler.disable();
+		}
 	}
 	
+	/**
+	 * Keep the menus the same size as the window
+	 */
+	@Override
+	public void resize (int width, int height) {
+		ui.resize(width, height);
+	}
+
+	/**
+	 * Pause whatever state is on top, e.g. stop its music
+	 */
+	@Override
+	public void pause () {
+		gsm.pause();
+	}
+
+	/**
+	 * Resume whatever state is on top
+	 */
+	@Override
+	public void resume () {
+		gsm.resume();
+	}
+
 	/**
 	 * Clean up any disposable objects
 	 */
 	@Override
 	public void dispose () {
+		// Dispose the states before the assets they hold handles to
+		gsm.dispose();
+		if (bot != null) {
+			bot.dispose();
+		}
+		// Finish the frame log
+		if (frameLog != null) {
+			try {
+				frameLog.close();
+			} catch (IOException e) {
+				Gdx.app.error("FirstGame", "Couldn't write the frame log", e);
+			}
+		}
+		// Let the last runs finish saving
+		history.dispose();
+		if (leaderboard != null) {
+			leaderboard.dispose();
+		}
+		ui.dispose();
+		audio.dispose();
 		batch.dispose();
+		assets.dispose();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package debug;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes one line per frame to a CSV file: the frame number, the microseconds
+ * spent in each phase and the counters. Comparing the files of two builds or
+ * two devices shows where they differ. The numbers are written one character
+ * at a time from a reused buffer so writing doesn't create garbage of its own.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class CsvFrameWriter implements FrameProfiler.FrameListener {
+	// Where the lines go
+	private final Writer out;
+	// Reused to turn numbers into characters
+	private final char[] digits = new char[20];
+	// Set once writing fails so the error is only reported once
+	private IOException error;
+
+	/**
+	 * CsvFrameWriter constructor. Writes the header straight away.
+	 *
+	 * @param out
+	 *            where the lines go; should be buffered
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public CsvFrameWriter(Writer out) throws IOException {
+		this.out = out;
+		out.write("frame");
+		for (String name : FrameProfiler.PHASE_NAMES) {
+			out.write("," + name + "_us");
+		}
+		for (String name : FrameProfiler.COUNTER_NAMES) {
+			out.write("," + name);
+		}
+		out.write('\n');
+	}
+
+	@Override
+	public void frameEnded(FrameProfiler profiler) {
+		if (error != null) {
+			return;
+		}
+		try {
+			write(profiler.getFrames());
+			for (int phase = 0; phase < FrameProfiler.PHASES; phase++) {
+				out.write(',');
+				write(profiler.getLast(phase) / 1000);
+			}
+			for (int counter = 0; counter < FrameProfiler.COUNTERS; counter++) {
+				out.write(',');
+				write(profiler.getCounter(counter));
+			}
+			out.write('\n');
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	/**
+	 * Flushes and closes the file
+	 *
+	 * @throws IOException
+	 *             if writing failed at any point
+	 */
+	public void close() throws IOException {
+		out.close();
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Writes a number that isn't negative
+	 *
+	 * @param value
+	 *            the number
+	 * @throws IOException
+	 *             if it can't be written
+	 */
+	private void write(long value) throws IOException {
+		int length = 0;
+		do {
+			digits[digits.length - 1 - length++] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		out.write(digits, digits.length - length, length);
+	}
+}
@@ -0,0 +1,234 @@
+package debug;
+
+import java.util.Arrays;
+
+/**
+ * Measures where the time of each frame goes. Code wraps each phase of a
+ * frame (updating the world, colliding, drawing sprites, ...) in start() and
+ * stop(), which only read the nanosecond clock and add to a total, so leaving
+ * the calls in costs next to nothing. When the profiler is disabled they
+ * return straight away.
+ *
+ * At the end of every frame the totals are kept in a rolling window of the
+ * last WINDOW frames, from which the p50/p95/p99 of each phase can be read,
+ * and handed to an optional listener (e.g. a CsvFrameWriter). Counters read
+ * from outside, such as the SpriteBatch's render calls, are kept alongside.
+ *
+ * The profiler has no graphics code of its own, so the GameWorld can use it
+ * without a window.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class FrameProfiler {
+	// The phases of a frame
+	public static final int FRAME = 0;
+	public static final int UPDATE = 1;
+	public static final int CAMERA = 2;
+	public static final int LEVEL = 3;
+	public static final int COLLISION = 4;
+	public static final int RENDER = 5;
+	public static final int SPRITES = 6;
+	public static final int TEXT = 7;
+	public static final int AUDIO = 8;
+	public static final int PHASES = 9;
+	// Names of the phases, used in the overlay and as CSV columns
+	public static final String[] PHASE_NAMES = { "frame", "update", "camera", "level", "collision", "render",
+			"sprites", "text", "audio" };
+	// Counters read once a frame
+	public static final int RENDER_CALLS = 0;
+	public static final int GL_CALLS = 1;
+	public static final int DRAW_CALLS = 2;
+	public static final int TEXTURE_BINDINGS = 3;
+	public static final int SHADER_SWITCHES = 4;
+	// Slowest key press to reach the simulation this frame, in microseconds
+	public static final int INPUT_LATENCY = 5;
+	public static final int COUNTERS = 6;
+	// Names of the counters
+	public static final String[] COUNTER_NAMES = { "render_calls", "gl_calls", "draw_calls", "texture_bindings",
+			"shader_switches", "input_latency_us" };
+	// How many frames the percentiles are worked out over
+	public static final int WINDOW = 600;
+
+	/**
+	 * Told about every frame once it has ended
+	 */
+	public interface FrameListener {
+		/**
+		 * Called at the end of every frame
+		 *
+		 * @param profiler
+		 *            the profiler, whose getLast() and getCounter() hold the frame
+		 */
+		void frameEnded(FrameProfiler profiler);
+	}
+
+	// False to skip all measuring
+	private boolean enabled = false;
+	// When each running phase was started
+	private final long[] started = new long[PHASES];
+	// Time spent in each phase so far this frame
+	private final long[] totals = new long[PHASES];
+	// Time spent in each phase in each of the last WINDOW frames
+	private final long[][] history = new long[PHASES][WINDOW];
+	// The counters of the last frame
+	private final int[] counters = new int[COUNTERS];
+	// Reused when sorting a phase's history
+	private final long[] sorted = new long[WINDOW];
+	// Where the next frame goes in the history
+	private int cursor = 0;
+	// How many frames have ended since the profiler was enabled
+	private int frames = 0;
+	// Told about every frame; may be null
+	private FrameListener listener;
+
+	/**
+	 * Turns measuring on or off. Turning it on starts a new window.
+	 *
+	 * @param enabled
+	 *            true to measure
+	 */
+	public void setEnabled(boolean enabled) {
+		if (enabled && !this.enabled) {
+			frames = 0;
+			cursor = 0;
+		}
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Starts a new frame
+	 */
+	public void beginFrame() {
+		if (!enabled) {
+			return;
+		}
+		Arrays.fill(totals, 0);
+		started[FRAME] = System.nanoTime();
+	}
+
+	/**
+	 * Starts timing a phase
+	 *
+	 * @param phase
+	 *            the phase, e.g. COLLISION
+	 */
+	public void start(int phase) {
+		if (!enabled) {
+			return;
+		}
+		started[phase] = System.nanoTime();
+	}
+
+	/**
+	 * Stops timing a phase and adds the time to this frame's total. A phase can be
+	 * started and stopped many times in a frame, e.g. once per tick.
+	 *
+	 * @param phase
+	 *            the phase, e.g. COLLISION
+	 */
+	public void stop(int phase) {
+		if (!enabled) {
+			return;
+		}
+		totals[phase] += System.nanoTime() - started[phase];
+	}
+
+	/**
+	 * Sets a counter for this frame
+	 *
+	 * @param counter
+	 *            the counter, e.g. RENDER_CALLS
+	 * @param value
+	 *            its value
+	 */
+	public void setCounter(int counter, int value) {
+		counters[counter] = value;
+	}
+
+	/**
+	 * Ends the frame, adds it to the window and tells the listener
+	 */
+	public void endFrame() {
+		if (!enabled) {
+			return;
+		}
+		totals[FRAME] = System.nanoTime() - started[FRAME];
+		for (int phase = 0; phase < PHASES; phase++) {
+			history[phase][cursor] = totals[phase];
+		}
+		cursor = (cursor + 1) % WINDOW;
+		frames++;
+		if (listener != null) {
+			listener.frameEnded(this);
+		}
+	}
+
+	/**
+	 * Works out a percentile of a phase over the window. Sorts a copy of the
+	 * window, so it is meant to be called a few times a second rather than for
+	 * every phase every frame.
+	 *
+	 * @param phase
+	 *            the phase, e.g. COLLISION
+	 * @param percentile
+	 *            the percentile, from 0 to 1, e.g. .95
+	 * @return the time in nanoseconds that that share of frames stayed under
+	 */
+	public long getPercentile(int phase, float percentile) {
+		int count = Math.min(frames, WINDOW);
+		if (count == 0) {
+			return 0;
+		}
+		System.arraycopy(history[phase], 0, sorted, 0, count);
+		Arrays.sort(sorted, 0, count);
+		int rank = (int) Math.ceil(percentile * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, rank))];
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return true if the profiler is measuring
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 *
+	 * @param phase
+	 *            the phase, e.g. COLLISION
+	 * @return the time spent in the phase in the last frame, in nanoseconds
+	 */
+	public long getLast(int phase) {
+		return history[phase][(cursor + WINDOW - 1) % WINDOW];
+	}
+
+	/**
+	 *
+	 * @param counter
+	 *            the counter, e.g. RENDER_CALLS
+	 * @return its value in the last frame
+	 */
+	public int getCounter(int counter) {
+		return counters[counter];
+	}
+
+	/**
+	 *
+	 * @return how many frames have ended since the profiler was enabled
+	 */
+	public int getFrames() {
+		return frames;
+	}
+
+	/**
+	 * @param listener
+	 *            told about every frame; may be null
+	 */
+	public void setListener(FrameListener listener) {
+		this.listener = listener;
+	}
+}
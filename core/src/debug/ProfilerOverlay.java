@@ -0,0 +1,89 @@
+package debug;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * Draws the profiler's numbers over the game: the p50/p95/p99 of every phase
+ * in microseconds and the counters of the last frame. The text is only
+ * rebuilt a couple of times a second, since working out the percentiles sorts
+ * the whole window.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ProfilerOverlay {
+	// How many frames go by between updates of the text
+	private static final int REFRESH_FRAMES = 30;
+	// Distance from the top left corner of the screen
+	private static final int MARGIN = 8;
+	// The profiler being shown
+	private final FrameProfiler profiler;
+	// Holds the laid out text
+	private final BitmapFontCache cache;
+	// Reused to build the text
+	private final StringBuilder text = new StringBuilder(1024);
+	// Draws in screen pixels no matter what camera the states use
+	private final Matrix4 projection = new Matrix4();
+	// Frames left until the text is rebuilt
+	private int countdown = 0;
+
+	/**
+	 * ProfilerOverlay constructor
+	 *
+	 * @param profiler
+	 *            the profiler to show
+	 * @param font
+	 *            the font to draw with
+	 */
+	public ProfilerOverlay(FrameProfiler profiler, BitmapFont font) {
+		this.profiler = profiler;
+		cache = font.newFontCache();
+		cache.setColor(Color.YELLOW);
+	}
+
+	/**
+	 * Draws the overlay on top of everything else
+	 *
+	 * @param batch
+	 *            the batch to draw with; must not be drawing already
+	 * @param width
+	 *            the width of the screen in pixels
+	 * @param height
+	 *            the height of the screen in pixels
+	 */
+	public void draw(SpriteBatch batch, int width, int height) {
+		if (--countdown <= 0) {
+			countdown = REFRESH_FRAMES;
+			rebuild();
+		}
+		projection.setToOrtho2D(0, 0, width, height);
+		batch.setProjectionMatrix(projection);
+		batch.begin();
+		cache.setPosition(MARGIN, height - MARGIN);
+		cache.draw(batch);
+		batch.end();
+	}
+
+	/**
+	 * Writes the current numbers into the text
+	 */
+	private void rebuild() {
+		text.setLength(0);
+		text.append("phase  p50 / p95 / p99 us\n");
+		for (int phase = 0; phase < FrameProfiler.PHASES; phase++) {
+			text.append(FrameProfiler.PHASE_NAMES[phase]).append("  ");
+			text.append(profiler.getPercentile(phase, .5f) / 1000).append(" / ");
+			text.append(profiler.getPercentile(phase, .95f) / 1000).append(" / ");
+			text.append(profiler.getPercentile(phase, .99f) / 1000).append('\n');
+		}
+		for (int counter = 0; counter < FrameProfiler.COUNTERS; counter++) {
+			text.append(FrameProfiler.COUNTER_NAMES[counter]).append("  ");
+			text.append(profiler.getCounter(counter)).append('\n');
+		}
+		cache.setText(text, 0, 0);
+	}
+}
@@ -0,0 +1,276 @@
+package entities;
+
+/**
+ * Holds every hazard (and later every pickup) in the game. Like the
+ * BlockStore, each component is kept in its own primitive array instead of
+ * one object per entity, and the live entities always fill the first count()
+ * slots, so a system is a single loop over a few arrays with nothing to skip.
+ *
+ * Removing an entity moves the last one into its slot, so slots are recycled
+ * the moment they are freed and the store never allocates after it is
+ * created. Because of that an entity's index is only good until the next
+ * removal; nothing should hold on to one.
+ *
+ * An entity can ride a row of the BlockStore, in which case its position is
+ * kept as an offset from the left end of the row and the RideSystem moves it
+ * along with the row.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class EntityStore {
+	// The slot value of an entity that doesn't ride a row
+	public static final int NO_ROW = -1;
+	// What each entity is, see Chunk for the hazards
+	private final byte[] kind;
+	// Where each entity is, its bottom left corner
+	private final float[] x, y;
+	// How big each entity is drawn and collides
+	private final float[] width, height;
+	// The BlockStore slot of the row each entity rides, or NO_ROW
+	private final int[] row;
+	// Where each rider sits, measured from the left end and the bottom of its
+	// row
+	private final float[] offsetX, offsetY;
+	// How many entities are alive
+	private int count = 0;
+
+	/**
+	 * EntityStore constructor
+	 *
+	 * @param capacity
+	 *            the most entities that can be alive at once
+	 */
+	public EntityStore(int capacity) {
+		kind = new byte[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		width = new float[capacity];
+		height = new float[capacity];
+		row = new int[capacity];
+		offsetX = new float[capacity];
+		offsetY = new float[capacity];
+	}
+
+	/**
+	 * Adds an entity that rides a row. Its position is filled in the next time
+	 * the RideSystem runs.
+	 *
+	 * @param kind
+	 *            what the entity is
+	 * @param slot
+	 *            the BlockStore slot of the row
+	 * @param offsetX
+	 *            where it sits, measured from the left end of the row
+	 * @param offsetY
+	 *            where it sits, measured from the bottom of the row
+	 * @param width
+	 *            how wide it is
+	 * @param height
+	 *            how tall it is
+	 * @return the index of the new entity, or -1 if the store is full
+	 */
+	public int spawnOnRow(byte kind, int slot, float offsetX, float offsetY, float width, float height) {
+		if (count == this.kind.length) {
+			return -1;
+		}
+		int i = count++;
+		this.kind[i] = kind;
+		this.width[i] = width;
+		this.height[i] = height;
+		row[i] = slot;
+		this.offsetX[i] = offsetX;
+		this.offsetY[i] = offsetY;
+		return i;
+	}
+
+	/**
+	 * Adds an entity that stays where it is put
+	 *
+	 * @param kind
+	 *            what the entity is
+	 * @param x
+	 *            the x position of its left edge
+	 * @param y
+	 *            the y position of its bottom edge
+	 * @param width
+	 *            how wide it is
+	 * @param height
+	 *            how tall it is
+	 * @return the index of the new entity, or -1 if the store is full
+	 */
+	public int spawn(byte kind, float x, float y, float width, float height) {
+		int i = spawnOnRow(kind, NO_ROW, 0, 0, width, height);
+		if (i >= 0) {
+			this.x[i] = x;
+			this.y[i] = y;
+		}
+		return i;
+	}
+
+	/**
+	 * Removes an entity by moving the last one into its slot
+	 *
+	 * @param i
+	 *            the index of the entity
+	 */
+	public void remove(int i) {
+		int last = --count;
+		kind[i] = kind[last];
+		x[i] = x[last];
+		y[i] = y[last];
+		width[i] = width[last];
+		height[i] = height[last];
+		row[i] = row[last];
+		offsetX[i] = offsetX[last];
+		offsetY[i] = offsetY[last];
+	}
+
+	/**
+	 * Removes every entity riding a row, e.g. because the row is being reused
+	 *
+	 * @param slot
+	 *            the BlockStore slot of the row
+	 */
+	public void removeRow(int slot) {
+		// Go backwards so the entity moved into a freed slot has already been
+		// checked
+		for (int i = count - 1; i >= 0; i--) {
+			if (row[i] == slot) {
+				remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Copies every entity of another store into this one
+	 *
+	 * @param other
+	 *            the store to copy; must not hold more entities than this one can
+	 */
+	public void set(EntityStore other) {
+		int n = other.count;
+		System.arraycopy(other.kind, 0, kind, 0, n);
+		System.arraycopy(other.x, 0, x, 0, n);
+		System.arraycopy(other.y, 0, y, 0, n);
+		System.arraycopy(other.width, 0, width, 0, n);
+		System.arraycopy(other.height, 0, height, 0, n);
+		System.arraycopy(other.row, 0, row, 0, n);
+		System.arraycopy(other.offsetX, 0, offsetX, 0, n);
+		System.arraycopy(other.offsetY, 0, offsetY, 0, n);
+		count = n;
+	}
+
+	/**
+	 * Moves an entity
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @param x
+	 *            the new x position of its left edge
+	 * @param y
+	 *            the new y position of its bottom edge
+	 */
+	public void setPosition(int i, float x, float y) {
+		this.x[i] = x;
+		this.y[i] = y;
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return what the entity is
+	 */
+	public byte getKind(int i) {
+		return kind[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return x-position of the entity's left edge
+	 */
+	public float getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return y-position of the entity's bottom edge
+	 */
+	public float getY(int i) {
+		return y[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return how wide the entity is
+	 */
+	public float getWidth(int i) {
+		return width[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return how tall the entity is
+	 */
+	public float getHeight(int i) {
+		return height[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return the BlockStore slot of the row the entity rides, or NO_ROW
+	 */
+	public int getRow(int i) {
+		return row[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return where a rider sits, measured from the left end of its row
+	 */
+	public float getOffsetX(int i) {
+		return offsetX[i];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the entity
+	 * @return where a rider sits, measured from the bottom of its row
+	 */
+	public float getOffsetY(int i) {
+		return offsetY[i];
+	}
+
+	/**
+	 *
+	 * @return how many entities are alive; their indices are 0 to count() - 1
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 *
+	 * @return the most entities that can be alive at once
+	 */
+	public int capacity() {
+		return kind.length;
+	}
+}
@@ -0,0 +1,36 @@
+package entities;
+
+import sprites.BlockStore;
+
+/**
+ * Keeps every entity that rides a row on top of it as the row slides. Runs
+ * once per tick after the rows have moved and been recycled.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public final class RideSystem {
+	/**
+	 * Only holds static methods
+	 */
+	private RideSystem() {
+	}
+
+	/**
+	 * Moves every rider to where its row is now
+	 *
+	 * @param entities
+	 *            the entities to move
+	 * @param blocks
+	 *            the rows they ride
+	 */
+	public static void update(EntityStore entities, BlockStore blocks) {
+		for (int i = 0, n = entities.count(); i < n; i++) {
+			int slot = entities.getRow(i);
+			if (slot != EntityStore.NO_ROW) {
+				entities.setPosition(i, blocks.getSlotX(slot) + entities.getOffsetX(i),
+						blocks.getSlotY(slot) + entities.getOffsetY(i));
+			}
+		}
+	}
+}
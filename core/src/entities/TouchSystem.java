@@ -0,0 +1,95 @@
+package entities;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Finds the entities a rectangle touches, e.g. the hazards the circle runs
+ * into. Every entity is tested in one pass over the position and size arrays,
+ * which stays cheap even with hundreds of them on screen. What touching does
+ * is up to a Listener, which decides by the entity's kind and can have the
+ * entity removed, e.g. once it has been collected.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public final class TouchSystem {
+	/**
+	 * Told about every entity a rectangle touches
+	 */
+	public interface Listener {
+		/**
+		 * Called for an entity the rectangle touches
+		 *
+		 * @param entities
+		 *            the store holding the entity
+		 * @param i
+		 *            the index of the entity
+		 * @return true to remove the entity from the store
+		 */
+		boolean touched(EntityStore entities, int i);
+	}
+
+	/**
+	 * Only holds static methods
+	 */
+	private TouchSystem() {
+	}
+
+	/**
+	 * Tells a listener about every entity that overlaps a rectangle, removing
+	 * the ones it asks to
+	 *
+	 * @param entities
+	 *            the entities to test
+	 * @param rect
+	 *            the rectangle
+	 * @param listener
+	 *            what to tell
+	 */
+	public static void touch(EntityStore entities, Rectangle rect, Listener listener) {
+		// Go backwards so the entity moved into a freed slot has already been
+		// checked
+		for (int i = entities.count() - 1; i >= 0; i--) {
+			if (overlaps(entities, i, rect) && listener.touched(entities, i)) {
+				entities.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Finds the first entity that overlaps a rectangle. Touching edges don't
+	 * count, the same as Rectangle.overlaps().
+	 *
+	 * @param entities
+	 *            the entities to test
+	 * @param rect
+	 *            the rectangle
+	 * @return the index of the entity, or -1 if none overlap
+	 */
+	public static int firstTouching(EntityStore entities, Rectangle rect) {
+		for (int i = 0, n = entities.count(); i < n; i++) {
+			if (overlaps(entities, i, rect)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @param entities
+	 *            the entities
+	 * @param i
+	 *            the index of one of them
+	 * @param rect
+	 *            a rectangle
+	 * @return true if the entity overlaps the rectangle; touching edges don't
+	 *         count
+	 */
+	private static boolean overlaps(EntityStore entities, int i, Rectangle rect) {
+		float x = entities.getX(i);
+		float y = entities.getY(i);
+		return rect.x < x + entities.getWidth(i) && rect.x + rect.width > x && rect.y < y + entities.getHeight(i)
+				&& rect.y + rect.height > y;
+	}
+}
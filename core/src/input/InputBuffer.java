@@ -0,0 +1,260 @@
+package input;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+
+import world.PlayerInput;
+
+/**
+ * Collects the player's key presses as they happen and hands them to the
+ * simulation one tick at a time. Each key down and key up is queued with the
+ * time it happened, and poll() turns every event up to the end of a tick into
+ * that tick's PlayerInput bits. So a press shorter than a frame still moves
+ * the circle for a tick, and a press is applied to the tick it happened in
+ * rather than whichever tick happens to read the keyboard next.
+ *
+ * A jump press is also remembered for a short while (the jump buffer). If the
+ * circle is still in the air when jump is pressed, it jumps as soon as it
+ * lands within that window, even if the key was let go in between. Once the
+ * world has used the press, jumped() forgets it.
+ *
+ * For every press the buffer measures how long it took to reach the
+ * simulation, from the moment the key went down to the tick that read it.
+ *
+ * The events are kept in fixed arrays, so taking input never allocates. Like
+ * every input processor, the buffer is only used from the game's thread.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class InputBuffer extends InputAdapter {
+	// Most events waiting at once; more than a frame of key mashing ever makes
+	private static final int CAPACITY = 64;
+	// How many presses the latency percentiles are worked out over
+	public static final int LATENCY_WINDOW = 256;
+	// Oldest an event's own timestamp may be before it is thought to come from a
+	// different clock, in nanoseconds
+	private static final long MAX_EVENT_AGE = 1000000000L;
+	// Means no jump press is waiting
+	private static final long NO_PRESS = Long.MIN_VALUE;
+
+	// How long a jump press is remembered for, in nanoseconds
+	private final long jumpBuffer;
+	// The events waiting to be read, oldest first, in a ring: the
+	// PlayerInput button, whether it went down, and when
+	private final int[] buttons = new int[CAPACITY];
+	private final boolean[] downs = new boolean[CAPACITY];
+	private final long[] times = new long[CAPACITY];
+	// Where the oldest event is and how many there are
+	private int head = 0, size = 0;
+	// The buttons held down as of the last event read
+	private int held = PlayerInput.NONE;
+	// When the last unused jump press happened, or NO_PRESS
+	private long jumpPressed = NO_PRESS;
+	// How long each of the last LATENCY_WINDOW presses took to reach a tick
+	private final long[] latencies = new long[LATENCY_WINDOW];
+	// Reused when sorting the latencies
+	private final long[] sorted = new long[LATENCY_WINDOW];
+	// How many presses have been measured, and the slowest since the last
+	// takeWorstLatency()
+	private int presses = 0;
+	private long worst = 0;
+
+	/**
+	 * InputBuffer constructor
+	 *
+	 * @param jumpBufferMillis
+	 *            how long a jump press is remembered for, in milliseconds; 0 to
+	 *            only jump on the tick jump is pressed or held
+	 */
+	public InputBuffer(int jumpBufferMillis) {
+		jumpBuffer = jumpBufferMillis * 1000000L;
+	}
+
+	/**
+	 * Forgets every event and reads which keys are held right now. Call it when
+	 * the buffer becomes the input processor, since keys pressed before then
+	 * were never seen.
+	 */
+	public void reset() {
+		head = 0;
+		size = 0;
+		jumpPressed = NO_PRESS;
+		held = PlayerInput.NONE;
+		for (int key : new int[] { Input.Keys.LEFT, Input.Keys.RIGHT, Input.Keys.SPACE }) {
+			if (Gdx.input.isKeyPressed(key)) {
+				held |= toButton(key);
+			}
+		}
+	}
+
+	@Override
+	public boolean keyDown(int keycode) {
+		return queue(keycode, true);
+	}
+
+	@Override
+	public boolean keyUp(int keycode) {
+		return queue(keycode, false);
+	}
+
+	/**
+	 * Queues a key event with the time it happened
+	 *
+	 * @param keycode
+	 *            the key
+	 * @param down
+	 *            true if it went down, false if it came up
+	 * @return true if the key is one the game uses
+	 */
+	private boolean queue(int keycode, boolean down) {
+		int button = toButton(keycode);
+		if (button == PlayerInput.NONE) {
+			return false;
+		}
+		// Use the time the backend saw the event, unless it doesn't look like it
+		// came from our clock
+		long now = System.nanoTime();
+		long time = Gdx.input.getCurrentEventTime();
+		if (time <= 0 || time > now || now - time > MAX_EVENT_AGE) {
+			time = now;
+		}
+		// Make room by reading the oldest event early; it only loses its timing
+		if (size == CAPACITY) {
+			apply(head, now);
+			head = (head + 1) % CAPACITY;
+			size--;
+		}
+		int i = (head + size) % CAPACITY;
+		buttons[i] = button;
+		downs[i] = down;
+		times[i] = time;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Reads every event up to the end of a tick
+	 *
+	 * @param tickTime
+	 *            the moment the tick ends, on the System.nanoTime() clock
+	 * @return the buttons for the tick, see PlayerInput
+	 */
+	public int poll(long tickTime) {
+		long now = System.nanoTime();
+		// A button pressed and let go within the tick still counts for it
+		int pressed = PlayerInput.NONE;
+		while (size > 0 && times[head] <= tickTime) {
+			if (downs[head]) {
+				pressed |= buttons[head];
+			}
+			apply(head, now);
+			head = (head + 1) % CAPACITY;
+			size--;
+		}
+		int input = held | pressed;
+		// A jump pressed a moment ago is still wanted if it hasn't been used
+		if (jumpPressed != NO_PRESS) {
+			if (tickTime - jumpPressed <= jumpBuffer) {
+				input |= PlayerInput.JUMP;
+			} else {
+				jumpPressed = NO_PRESS;
+			}
+		}
+		return input;
+	}
+
+	/**
+	 * Tells the buffer the world made the circle jump, so the press that did it
+	 * isn't used for another jump
+	 */
+	public void jumped() {
+		jumpPressed = NO_PRESS;
+	}
+
+	/**
+	 * Applies one event to the held buttons and measures its latency
+	 *
+	 * @param i
+	 *            where the event is in the ring
+	 * @param now
+	 *            the current time
+	 */
+	private void apply(int i, long now) {
+		if (!downs[i]) {
+			held &= ~buttons[i];
+			return;
+		}
+		held |= buttons[i];
+		if (buttons[i] == PlayerInput.JUMP) {
+			jumpPressed = times[i];
+		}
+		long latency = now - times[i];
+		latencies[presses % LATENCY_WINDOW] = latency;
+		presses++;
+		worst = Math.max(worst, latency);
+	}
+
+	/**
+	 *
+	 * @param keycode
+	 *            a key
+	 * @return the button it controls, or PlayerInput.NONE
+	 */
+	private static int toButton(int keycode) {
+		switch (keycode) {
+		case Input.Keys.LEFT:
+			return PlayerInput.LEFT;
+		case Input.Keys.RIGHT:
+			return PlayerInput.RIGHT;
+		case Input.Keys.SPACE:
+			return PlayerInput.JUMP;
+		default:
+			return PlayerInput.NONE;
+		}
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many presses have reached the simulation
+	 */
+	public int getPresses() {
+		return presses;
+	}
+
+	/**
+	 * Works out a percentile of the latency over the last LATENCY_WINDOW
+	 * presses. Sorts a copy of them, so call it now and then rather than every
+	 * tick.
+	 *
+	 * @param percentile
+	 *            the percentile, from 0 to 1, e.g. .95
+	 * @return the latency in nanoseconds that that share of presses stayed
+	 *         under, or 0 if nothing has been pressed
+	 */
+	public long getLatencyPercentile(float percentile) {
+		int n = Math.min(presses, LATENCY_WINDOW);
+		if (n == 0) {
+			return 0;
+		}
+		System.arraycopy(latencies, 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		return sorted[Math.min(n - 1, (int) (percentile * n))];
+	}
+
+	/**
+	 *
+	 * @return the slowest latency since the last call, in nanoseconds, or 0 if
+	 *         nothing was pressed since then
+	 */
+	public long takeWorstLatency() {
+		long slowest = worst;
+		worst = 0;
+		return slowest;
+	}
+}
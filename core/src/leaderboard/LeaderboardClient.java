@@ -0,0 +1,435 @@
+package leaderboard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import stats.RunJournal;
+import stats.RunRecord;
+
+/**
+ * Sends finished runs to an online leaderboard without ever slowing the game
+ * down. The game's thread only hands each run to a queue; everything else
+ * happens on one low priority background thread:
+ *
+ * <ul>
+ * <li>Every run is written to a RunJournal on disk before any upload is tried,
+ * so runs played offline, or not yet sent when the game closed, are sent the
+ * next time the game runs.</li>
+ * <li>Up to BATCH_SIZE runs are sent in one gzipped JSON POST.</li>
+ * <li>When the server can't be reached or asks us to slow down, the next try
+ * waits twice as long as the last one, up to MAX_BACKOFF_MILLIS, with some
+ * randomness so many players don't retry in step. A Retry-After header is
+ * respected.</li>
+ * <li>Runs are only ever dropped when the server says they are invalid (422).
+ * The batch is then split in half until the run it objects to is sent alone
+ * and dropped, so one bad run neither blocks the queue nor takes the good runs
+ * sent with it. Every other answer, including 400 from a server that doesn't
+ * understand the request and 401, 403 and 404 from a wrong key or address, is
+ * retried with the same backoff, so a misconfigured server never costs the
+ * player their runs.</li>
+ * </ul>
+ *
+ * Each run carries an id made of its seed and end time, so the server can
+ * ignore a batch that is sent twice because the reply to the first one was
+ * lost.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class LeaderboardClient implements Disposable {
+	// Most runs sent in one request
+	public static final int BATCH_SIZE = 50;
+	// How long the first retry waits, and the longest any retry waits
+	public static final int BASE_BACKOFF_MILLIS = 2000;
+	public static final int MAX_BACKOFF_MILLIS = 5 * 60 * 1000;
+	// How long to wait for the server to connect and to answer
+	private static final int TIMEOUT_MILLIS = 10000;
+	// Longest dispose() waits for the queue to be saved, in milliseconds
+	private static final int FLUSH_MILLIS = 1000;
+	// Handed to the queue to stop the thread
+	private static final RunRecord STOP = new RunRecord(0, 0, 0, 0, 0, 0);
+
+	// Where the runs are sent
+	private final URL url;
+	// How long the first retry waits, in milliseconds
+	private final int baseBackoff;
+	// Who played them
+	private final String player;
+	// Runs handed over by the game's thread, waiting to be saved
+	private final LinkedBlockingQueue<RunRecord> incoming = new LinkedBlockingQueue<RunRecord>();
+	// Runs saved but not yet sent, oldest first; only used by the thread
+	private final List<RunRecord> pending = new ArrayList<RunRecord>();
+	// The saved copy of pending, or null if it couldn't be read
+	private RunJournal queue;
+	// Spreads out retries
+	private final Random jitter = new Random();
+	// Sends the runs
+	private final Thread worker;
+	// How many runs to send in the next request; less than BATCH_SIZE while
+	// looking for a run the server rejects
+	private int batchSize = BATCH_SIZE;
+	// How many requests in a row have failed
+	private int failures = 0;
+	// How long the server last asked us to wait, or 0
+	private long retryAfterMillis = 0;
+	// Numbers for the game or a debug overlay to show
+	private volatile int waiting = 0;
+	private volatile long sent = 0;
+
+	/**
+	 * Starts the client, waiting BASE_BACKOFF_MILLIS before the first retry. The
+	 * saved queue is read on the background thread.
+	 *
+	 * @param url
+	 *            where runs are POSTed
+	 * @param player
+	 *            an id for the player, sent with every run
+	 * @param queueFile
+	 *            where runs that haven't been sent yet are kept
+	 */
+	public LeaderboardClient(URL url, String player, File queueFile) {
+		this(url, player, queueFile, BASE_BACKOFF_MILLIS);
+	}
+
+	/**
+	 * Starts the client. The saved queue is read on the background thread.
+	 *
+	 * @param url
+	 *            where runs are POSTed
+	 * @param player
+	 *            an id for the player, sent with every run
+	 * @param queueFile
+	 *            where runs that haven't been sent yet are kept
+	 * @param baseBackoffMillis
+	 *            how long the first retry waits; each one after it waits twice
+	 *            as long, up to MAX_BACKOFF_MILLIS
+	 */
+	public LeaderboardClient(URL url, String player, final File queueFile, int baseBackoffMillis) {
+		this.url = url;
+		baseBackoff = baseBackoffMillis;
+		this.player = player;
+		worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				load(queueFile);
+				work();
+			}
+		}, "leaderboard");
+		// Never take time from the game and never keep it from exiting
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * Queues a run to be sent. Only hands it to the background thread, so it is
+	 * safe to call from the game's thread at any time.
+	 *
+	 * @param run
+	 *            the run
+	 */
+	public void submit(RunRecord run) {
+		incoming.offer(run);
+	}
+
+	/**
+	 * Reads the runs that weren't sent last time
+	 *
+	 * @param queueFile
+	 *            where they are kept
+	 */
+	private void load(File queueFile) {
+		RunJournal journal = new RunJournal(queueFile);
+		try {
+			journal.load(pending, new RunJournal.Totals());
+			journal.repair();
+			queue = journal;
+		} catch (IOException e) {
+			Gdx.app.error("LeaderboardClient", "Couldn't read " + queueFile + ", unsent runs won't be kept", e);
+		}
+		waiting = pending.size();
+	}
+
+	/**
+	 * Run by the background thread: saves new runs as they arrive and sends
+	 * them whenever the server is due to be tried
+	 */
+	private void work() {
+		long retryAt = 0;
+		boolean running = true;
+		while (running) {
+			// Sleep until a run arrives or it is time to send
+			long wait = pending.isEmpty() ? Long.MAX_VALUE : retryAt - System.currentTimeMillis();
+			RunRecord run;
+			try {
+				run = wait > 0 ? incoming.poll(wait, TimeUnit.MILLISECONDS) : incoming.poll();
+			} catch (InterruptedException e) {
+				break;
+			}
+			// Save everything that has arrived before trying to send any of it
+			while (run != null) {
+				if (run == STOP) {
+					running = false;
+				} else {
+					save(run);
+				}
+				run = incoming.poll();
+			}
+			if (!running || pending.isEmpty() || System.currentTimeMillis() < retryAt) {
+				continue;
+			}
+			List<RunRecord> batch = pending.subList(0, Math.min(batchSize, pending.size()));
+			int status;
+			try {
+				status = upload(batch);
+			} catch (IOException e) {
+				status = -1;
+			}
+			if (status / 100 == 2) {
+				sent += batch.size();
+				batch.clear();
+				rewrite();
+				// Grow back towards full batches once past a rejected run
+				batchSize = Math.min(BATCH_SIZE, batchSize * 2);
+				failures = 0;
+				retryAt = 0;
+			} else if (status == 422 && batch.size() > 1) {
+				// Something in the batch is invalid; send the first half on its own
+				// right away to narrow down which run it is
+				batchSize = batch.size() / 2;
+				retryAt = 0;
+			} else if (status == 422) {
+				Gdx.app.error("LeaderboardClient", "Server rejected a run, dropping it");
+				batch.clear();
+				rewrite();
+				failures = 0;
+				retryAt = 0;
+			} else {
+				if (status / 100 == 4) {
+					Gdx.app.error("LeaderboardClient", "Server answered " + status + ", will try again");
+				}
+				failures++;
+				retryAt = System.currentTimeMillis() + backoff();
+			}
+		}
+		try {
+			if (queue != null) {
+				queue.close();
+			}
+		} catch (IOException e) {
+			Gdx.app.error("LeaderboardClient", "Couldn't close the queue", e);
+		}
+	}
+
+	/**
+	 * Adds a run to the queue and saves it
+	 *
+	 * @param run
+	 *            the run
+	 */
+	private void save(RunRecord run) {
+		pending.add(run);
+		waiting = pending.size();
+		if (queue == null) {
+			return;
+		}
+		try {
+			queue.append(run);
+		} catch (IOException e) {
+			Gdx.app.error("LeaderboardClient", "Couldn't save a run to the queue", e);
+		}
+	}
+
+	/**
+	 * Rewrites the saved queue after runs were taken off the front of it
+	 */
+	private void rewrite() {
+		waiting = pending.size();
+		if (queue == null) {
+			return;
+		}
+		try {
+			queue.compact(pending, new RunJournal.Totals());
+		} catch (IOException e) {
+			Gdx.app.error("LeaderboardClient", "Couldn't save the queue", e);
+		}
+	}
+
+	/**
+	 *
+	 * @return how long to wait before trying again, in milliseconds
+	 */
+	private long backoff() {
+		long delay = (long) baseBackoff << Math.min(failures - 1, 20);
+		// Wait somewhere between half and all of it
+		delay = Math.min(delay, MAX_BACKOFF_MILLIS);
+		delay = delay / 2 + (long) (jitter.nextDouble() * delay / 2);
+		return Math.max(delay, retryAfterMillis);
+	}
+
+	/**
+	 * Sends a batch of runs
+	 *
+	 * @param batch
+	 *            the runs
+	 * @return the HTTP status the server answered with
+	 * @throws IOException
+	 *             if the server couldn't be reached
+	 */
+	private int upload(List<RunRecord> batch) throws IOException {
+		byte[] body = encode(batch);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try {
+			connection.setConnectTimeout(TIMEOUT_MILLIS);
+			connection.setReadTimeout(TIMEOUT_MILLIS);
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(body.length);
+			connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+			connection.setRequestProperty("Content-Encoding", "gzip");
+			OutputStream out = connection.getOutputStream();
+			try {
+				out.write(body);
+			} finally {
+				out.close();
+			}
+			int status = connection.getResponseCode();
+			retryAfterMillis = parseRetryAfter(connection.getHeaderField("Retry-After"));
+			// Read the reply to the end so the connection can be reused
+			InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+			if (in != null) {
+				try {
+					byte[] skip = new byte[256];
+					while (in.read(skip) != -1) {
+					}
+				} finally {
+					StreamUtils.closeQuietly(in);
+				}
+			}
+			return status;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Writes a batch as gzipped JSON:
+	 *
+	 * <pre>
+	 * {"player":"...","runs":[{"id":"seed-time","time":..,"seed":..,"score":..,
+	 *  "speed":..,"jumps":..,"ticks":..},...]}
+	 * </pre>
+	 *
+	 * @param batch
+	 *            the runs
+	 * @return the request body
+	 * @throws IOException
+	 *             never, since everything is written to memory
+	 */
+	private byte[] encode(List<RunRecord> batch) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer json = new OutputStreamWriter(new GZIPOutputStream(bytes), "UTF-8");
+		json.write("{\"player\":\"");
+		json.write(escape(player));
+		json.write("\",\"runs\":[");
+		for (int i = 0; i < batch.size(); i++) {
+			RunRecord run = batch.get(i);
+			json.write(i == 0 ? "{" : ",{");
+			json.write("\"id\":\"" + run.seed + "-" + run.time + "\",\"time\":" + run.time + ",\"seed\":" + run.seed
+					+ ",\"score\":" + run.score + ",\"speed\":" + run.finalSpeed + ",\"jumps\":" + run.jumps
+					+ ",\"ticks\":" + run.ticks + "}");
+		}
+		json.write("]}");
+		json.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 *
+	 * @param text
+	 *            any text
+	 * @return the text with quotes, backslashes and control characters escaped
+	 *         for a JSON string
+	 */
+	private static String escape(String text) {
+		StringBuilder out = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			} else if (c < 0x20) {
+				out.append(String.format("\\u%04x", (int) c));
+			} else {
+				out.append(c);
+			}
+		}
+		return out.toString();
+	}
+
+	/**
+	 *
+	 * @param header
+	 *            the Retry-After header, or null
+	 * @return how long it asks us to wait in milliseconds, or 0 if it isn't a
+	 *         number of seconds
+	 */
+	private static long parseRetryAfter(String header) {
+		if (header == null) {
+			return 0;
+		}
+		try {
+			return Math.max(0, Long.parseLong(header.trim()) * 1000);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Stops the background thread once the runs it has been handed are saved.
+	 * Runs that weren't sent are sent the next time the game runs.
+	 */
+	@Override
+	public void dispose() {
+		incoming.offer(STOP);
+		try {
+			worker.join(FLUSH_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many runs are saved but not yet sent
+	 */
+	public int getWaiting() {
+		return waiting;
+	}
+
+	/**
+	 *
+	 * @return how many runs the server has accepted since the game started
+	 */
+	public long getSent() {
+		return sent;
+	}
+}
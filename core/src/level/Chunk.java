@@ -0,0 +1,47 @@
+package level;
+
+/**
+ * A stretch of the level made of a fixed number of rows, filled in by the
+ * patterns of a LevelGenerator. Each row is one green bar with a gap in it and
+ * may also move sideways or carry a hazard. Like the BlockStore, each property
+ * is kept in its own array.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class Chunk {
+	// How many rows each chunk holds
+	public static final int ROWS = 8;
+	// The kinds of hazard a row can carry
+	public static final byte HAZARD_NONE = 0;
+	public static final byte HAZARD_SPIKE = 1;
+	public static final byte HAZARD_FIRE = 2;
+	// The size each hazard is drawn and collides at
+	public static final int SPIKE_WIDTH = 30;
+	public static final int SPIKE_HEIGHT = 14;
+	public static final int FIRE_WIDTH = 15;
+	public static final int FIRE_HEIGHT = 22;
+	// Where the chunk is in the level, 0 being the first one
+	public final int index;
+	// The x position of the left half of each row
+	public final float[] leftX = new float[ROWS];
+	// The space between the two halves of each row
+	public final float[] gap = new float[ROWS];
+	// How fast each row slides sideways in pixels per second, 0 for rows that
+	// don't move
+	public final float[] speed = new float[ROWS];
+	// The hazard on top of each row
+	public final byte[] hazard = new byte[ROWS];
+	// Where the hazard sits, measured from the left edge of the row
+	public final float[] hazardX = new float[ROWS];
+
+	/**
+	 * Chunk constructor
+	 *
+	 * @param index
+	 *            where the chunk is in the level
+	 */
+	public Chunk(int index) {
+		this.index = index;
+	}
+}
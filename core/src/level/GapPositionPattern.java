@@ -0,0 +1,33 @@
+package level;
+
+import java.util.Random;
+
+/**
+ * Picks a random place for the gap in every row by sliding the row sideways.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class GapPositionPattern implements Pattern {
+	// How far left a row can be slid
+	private final int range;
+
+	/**
+	 * GapPositionPattern constructor
+	 *
+	 * @param range
+	 *            how far left of 0 the left half of a row can start
+	 */
+	public GapPositionPattern(int range) {
+		this.range = range;
+	}
+
+	@Override
+	public void apply(Chunk chunk, Random rand) {
+		for (int row = 0; row < Chunk.ROWS; row++) {
+			// From -range to 0, so the left half always reaches the left side of the
+			// screen
+			chunk.leftX[row] = rand.nextInt(range + 1) - range;
+		}
+	}
+}
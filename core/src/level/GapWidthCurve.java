@@ -0,0 +1,50 @@
+package level;
+
+import java.util.Random;
+
+/**
+ * Narrows the gaps the further the level goes, from a wide first chunk down
+ * to a smallest gap that is kept from then on. Each row gets a little random
+ * variation on top of the curve.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class GapWidthCurve implements Pattern {
+	// Gap of the first chunk
+	private final float start;
+	// Smallest gap the curve goes down to
+	private final float end;
+	// How much narrower the gap gets with each chunk
+	private final float step;
+	// Most a row can differ from the curve, either way
+	private final float jitter;
+
+	/**
+	 * GapWidthCurve constructor
+	 *
+	 * @param start
+	 *            the gap of the first chunk
+	 * @param end
+	 *            the smallest gap
+	 * @param step
+	 *            how much narrower the gap gets with each chunk
+	 * @param jitter
+	 *            most a row can differ from the curve
+	 */
+	public GapWidthCurve(float start, float end, float step, float jitter) {
+		this.start = start;
+		this.end = end;
+		this.step = step;
+		this.jitter = jitter;
+	}
+
+	@Override
+	public void apply(Chunk chunk, Random rand) {
+		float width = Math.max(end, start - step * chunk.index);
+		for (int row = 0; row < Chunk.ROWS; row++) {
+			// Never go below the smallest gap, even with the variation
+			chunk.gap[row] = Math.max(end, width + (rand.nextFloat() * 2 - 1) * jitter);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package level;
+
+import java.util.Random;
+
+/**
+ * Puts a spike or a fire on top of some rows, on the part of the left half
+ * that is on screen and a little away from the gap. Touching a hazard ends the
+ * game. Must run after the pattern that places the rows.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class HazardPattern implements Pattern {
+	// Closest a hazard sits to the gap
+	private static final int MIN_DISTANCE = 15;
+	// The first chunk that can have hazards
+	private final int firstChunk;
+	// Chance of a row having a hazard
+	private final float chance;
+	// Width of the left half of a row
+	private final float rowWidth;
+
+	/**
+	 * HazardPattern constructor
+	 *
+	 * @param firstChunk
+	 *            the first chunk that can have hazards
+	 * @param chance
+	 *            chance of a row having a hazard, from 0 to 1
+	 * @param rowWidth
+	 *            width of the left half of a row
+	 */
+	public HazardPattern(int firstChunk, float chance, float rowWidth) {
+		this.firstChunk = firstChunk;
+		this.chance = chance;
+		this.rowWidth = rowWidth;
+	}
+
+	@Override
+	public void apply(Chunk chunk, Random rand) {
+		if (chunk.index < firstChunk) {
+			return;
+		}
+		for (int row = 0; row < Chunk.ROWS; row++) {
+			// Always draw every number so the rest of the chunk doesn't depend on
+			// whether this row gets a hazard
+			float roll = rand.nextFloat();
+			boolean spike = rand.nextBoolean();
+			float place = rand.nextFloat();
+			// Never put hazards on two rows in a row
+			if (roll >= chance || (row > 0 && chunk.hazard[row - 1] != Chunk.HAZARD_NONE)) {
+				continue;
+			}
+			float width = spike ? Chunk.SPIKE_WIDTH : Chunk.FIRE_WIDTH;
+			// The hazard has to fit between the left side of the screen and the gap
+			float first = Math.max(0, -chunk.leftX[row]);
+			float last = rowWidth - MIN_DISTANCE - width;
+			if (last < first) {
+				continue;
+			}
+			chunk.hazard[row] = spike ? Chunk.HAZARD_SPIKE : Chunk.HAZARD_FIRE;
+			chunk.hazardX[row] = first + place * (last - first);
+		}
+	}
+}
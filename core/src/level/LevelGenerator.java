@@ -0,0 +1,203 @@
+package level;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Builds the level one chunk at a time by running a list of patterns over
+ * each new chunk. Every chunk has its own random number generator seeded from
+ * the level's seed and the chunk's index, so a chunk always comes out the same
+ * no matter which thread builds it or when.
+ *
+ * Once start() is called, a background thread builds chunks a few ahead of the
+ * ones the game has used and hands them over through a lock-free queue. The
+ * game never waits for it: if the next chunk isn't ready yet it is simply built
+ * on the spot, which gives the exact same chunk. Without start() every chunk is
+ * built on the spot, which is what simulations and tools running many worlds
+ * at once want.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class LevelGenerator {
+	// How many chunks the background thread builds ahead of the game
+	private static final int LOOKAHEAD = 3;
+	// The seed of the level
+	private final long seed;
+	// The patterns run over every chunk, in order
+	private final Pattern[] patterns;
+	// Chunks built by the background thread, in order, waiting to be used
+	private final ConcurrentLinkedQueue<Chunk> ready;
+	// Index of the next chunk the game will use; written by the game, read by
+	// the background thread
+	private volatile int next = 0;
+	// Set to false to stop the background thread
+	private volatile boolean running = false;
+	// The background thread, or null when chunks are built on the spot
+	private Thread worker;
+	// How many chunks the game had to build itself because they weren't ready
+	private int builtInline = 0;
+
+	/**
+	 * LevelGenerator constructor
+	 *
+	 * @param seed
+	 *            the seed of the level
+	 * @param patterns
+	 *            the patterns run over every chunk, in order
+	 */
+	public LevelGenerator(long seed, Pattern... patterns) {
+		this.seed = seed;
+		this.patterns = patterns;
+		ready = new ConcurrentLinkedQueue<Chunk>();
+	}
+
+	/**
+	 * Starts building chunks ahead of time on a background thread
+	 */
+	public void start() {
+		if (worker != null) {
+			return;
+		}
+		running = true;
+		worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		}, "level-generator");
+		// Never slow the game down and never keep it from exiting
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * Stops the background thread. Chunks are built on the spot from then on.
+	 */
+	public void stop() {
+		if (worker == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(worker);
+		worker = null;
+		ready.clear();
+	}
+
+	/**
+	 * Makes next() carry on from a chunk, e.g. to match a copy of a world to the
+	 * original. Only allowed while no background thread is running.
+	 *
+	 * @param index
+	 *            the index of the chunk next() should return
+	 */
+	public void seek(int index) {
+		if (worker != null) {
+			throw new IllegalStateException("Can't seek while building chunks in the background");
+		}
+		next = index;
+	}
+
+	/**
+	 * Gets the next chunk of the level. Never waits for the background thread.
+	 *
+	 * @return the chunk after the one returned last time
+	 */
+	public Chunk next() {
+		int index = next;
+		// Throw away anything the background thread built that was already built
+		// on the spot
+		Chunk chunk = ready.poll();
+		while (chunk != null && chunk.index < index) {
+			chunk = ready.poll();
+		}
+		if (chunk == null || chunk.index != index) {
+			chunk = build(index);
+			builtInline++;
+		}
+		next = index + 1;
+		// Let the background thread know there is room for another chunk
+		Thread thread = worker;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Builds a chunk by running every pattern over it
+	 *
+	 * @param index
+	 *            where the chunk is in the level
+	 * @return the chunk
+	 */
+	public Chunk build(int index) {
+		Chunk chunk = new Chunk(index);
+		// Mix the index into the seed so neighbouring chunks don't get similar
+		// random numbers
+		Random rand = new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+		for (Pattern pattern : patterns) {
+			pattern.apply(chunk, rand);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Run by the background thread: keeps LOOKAHEAD chunks ready ahead of the
+	 * game and sleeps the rest of the time
+	 */
+	private void work() {
+		int building = next;
+		while (running) {
+			int used = next;
+			// The game built some chunks itself, so skip ahead of them
+			if (building < used) {
+				building = used;
+			}
+			if (building < used + LOOKAHEAD) {
+				ready.add(build(building));
+				building++;
+			} else {
+				// Sleep until the game takes a chunk
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the seed of the level
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 *
+	 * @return the index of the chunk next() will return
+	 */
+	public int getNextIndex() {
+		return next;
+	}
+
+	/**
+	 *
+	 * @return how many chunks the game had to build itself because the
+	 *         background thread hadn't built them yet
+	 */
+	public int getBuiltInline() {
+		return builtInline;
+	}
+
+	/**
+	 *
+	 * @return true if chunks are being built on a background thread
+	 */
+	public boolean isRunning() {
+		return worker != null;
+	}
+}
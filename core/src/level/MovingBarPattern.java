@@ -0,0 +1,61 @@
+package level;
+
+import java.util.Random;
+
+/**
+ * Makes some rows slide back and forth. None move in the first chunks, then
+ * each row has a growing chance of moving up to a highest chance.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class MovingBarPattern implements Pattern {
+	// The first chunk that can have moving rows
+	private final int firstChunk;
+	// How much more likely a row is to move with each chunk after the first
+	private final float chanceStep;
+	// Highest chance of a row moving
+	private final float maxChance;
+	// Slowest and fastest a row can move, in pixels per second
+	private final float minSpeed, maxSpeed;
+
+	/**
+	 * MovingBarPattern constructor
+	 *
+	 * @param firstChunk
+	 *            the first chunk that can have moving rows
+	 * @param chanceStep
+	 *            how much more likely a row is to move with each chunk
+	 * @param maxChance
+	 *            highest chance of a row moving, from 0 to 1
+	 * @param minSpeed
+	 *            slowest a row can move, in pixels per second
+	 * @param maxSpeed
+	 *            fastest a row can move, in pixels per second
+	 */
+	public MovingBarPattern(int firstChunk, float chanceStep, float maxChance, float minSpeed, float maxSpeed) {
+		this.firstChunk = firstChunk;
+		this.chanceStep = chanceStep;
+		this.maxChance = maxChance;
+		this.minSpeed = minSpeed;
+		this.maxSpeed = maxSpeed;
+	}
+
+	@Override
+	public void apply(Chunk chunk, Random rand) {
+		if (chunk.index < firstChunk) {
+			return;
+		}
+		float chance = Math.min(maxChance, chanceStep * (chunk.index - firstChunk + 1));
+		for (int row = 0; row < Chunk.ROWS; row++) {
+			// Always draw both numbers so the rest of the chunk doesn't depend on
+			// whether this row moves
+			float roll = rand.nextFloat();
+			float speed = minSpeed + rand.nextFloat() * (maxSpeed - minSpeed);
+			if (roll < chance) {
+				// Start moving left or right
+				chunk.speed[row] = rand.nextBoolean() ? speed : -speed;
+			}
+		}
+	}
+}
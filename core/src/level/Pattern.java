@@ -0,0 +1,26 @@
+package level;
+
+import java.util.Random;
+
+/**
+ * One rule for laying out a chunk, e.g. where the gaps go or which rows move.
+ * A LevelGenerator runs its patterns over every new chunk in order, so later
+ * patterns can build on what earlier ones set. Patterns may be run on a
+ * background thread, so they must only use the chunk and random number
+ * generator they are given.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public interface Pattern {
+	/**
+	 * Fills in part of a chunk
+	 *
+	 * @param chunk
+	 *            the chunk being built; chunk.index says how far into the level it
+	 *            is
+	 * @param rand
+	 *            the random number generator of the chunk
+	 */
+	void apply(Chunk chunk, Random rand);
+}
@@ -0,0 +1,59 @@
+package render;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * The space backdrop behind every screen. Nothing shows through it, so it is
+ * drawn as a single quad with blending turned off, which lets the GPU skip
+ * reading back the pixels underneath. The quad always covers the camera's view
+ * exactly; the backdrop scrolls by moving its texture coordinates instead, and
+ * since its texture repeats (see Assets.BACKDROP_PARAMETERS) it can scroll
+ * forever.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class Backdrop {
+	// How far the backdrop scrolls for every unit the camera moves. Less than 1
+	// makes it look further away than the blocks.
+	public static final float PARALLAX = .2f;
+	// The texture repeats mirrored, so it looks the same again after two copies
+	private static final float PERIOD = 2;
+	// The repeating space texture
+	private final Texture texture;
+
+	/**
+	 * Backdrop constructor
+	 *
+	 * @param texture
+	 *            the space texture, loaded with Assets.BACKDROP_PARAMETERS
+	 */
+	public Backdrop(Texture texture) {
+		this.texture = texture;
+	}
+
+	/**
+	 * Fills the camera's view with the backdrop. It should be the first thing
+	 * drawn after the batch begins, so turning blending off doesn't flush
+	 * anything.
+	 *
+	 * @param batch
+	 *            the batch, which must be drawing
+	 * @param cam
+	 *            the camera the batch is drawing with
+	 * @param scroll
+	 *            how far the camera has moved down, in world units
+	 */
+	public void draw(SpriteBatch batch, OrthographicCamera cam, float scroll) {
+		// Move the texture up by a fraction of how far the camera has moved down.
+		// Wrapping keeps the coordinates small so they stay precise on long runs.
+		float v = (scroll * PARALLAX / cam.viewportHeight) % PERIOD;
+		batch.disableBlending();
+		// The top of the texture is v, so the bottom of the quad gets v + 1
+		batch.draw(texture, cam.position.x - cam.viewportWidth / 2, cam.position.y - cam.viewportHeight / 2,
+				cam.viewportWidth, cam.viewportHeight, 0, v + 1, 1, v);
+		batch.enableBlending();
+	}
+}
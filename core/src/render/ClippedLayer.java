@@ -0,0 +1,67 @@
+package render;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * A see-through picture that stays in the same place on the screen and spans
+ * its whole width, like the sun and the dashes. Only the part of it that is
+ * on screen is drawn, so the GPU doesn't blend pixels nobody sees. Which part
+ * that is only depends on where the picture sits on the screen, so it is
+ * worked out once here instead of every frame.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ClippedLayer {
+	// The part of the picture that is on screen
+	private final TextureRegion visible;
+	// Where the visible part starts, measured up from the bottom of the view
+	private final float y;
+	// How tall the visible part is drawn; 0 if it is entirely off screen
+	private final float height;
+
+	/**
+	 * ClippedLayer constructor
+	 *
+	 * @param region
+	 *            the picture, which must not be rotated in its atlas
+	 * @param y
+	 *            where the bottom of the picture is, measured up from the bottom
+	 *            of the view
+	 * @param height
+	 *            how tall the picture is drawn
+	 * @param viewHeight
+	 *            how tall the view is
+	 */
+	public ClippedLayer(TextureRegion region, float y, float height, float viewHeight) {
+		// Cut off whatever is below or above the view
+		float bottom = Math.max(y, 0);
+		float top = Math.min(y + height, viewHeight);
+		this.y = bottom;
+		this.height = Math.max(top - bottom, 0);
+		// Move the region's edges in by the same fractions; v is the top of the
+		// region and v2 the bottom
+		visible = new TextureRegion(region);
+		float span = region.getV2() - region.getV();
+		visible.setV(region.getV() + span * (y + height - top) / height);
+		visible.setV2(region.getV2() - span * (bottom - y) / height);
+	}
+
+	/**
+	 * Draws the visible part of the picture
+	 *
+	 * @param batch
+	 *            the batch, which must be drawing
+	 * @param cam
+	 *            the camera the batch is drawing with
+	 */
+	public void draw(Batch batch, OrthographicCamera cam) {
+		if (height <= 0) {
+			return;
+		}
+		batch.draw(visible, cam.position.x - cam.viewportWidth / 2, cam.position.y - cam.viewportHeight / 2 + y,
+				cam.viewportWidth, height);
+	}
+}
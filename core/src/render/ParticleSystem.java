@@ -0,0 +1,234 @@
+package render;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Small effects like jump dust, sparks and flames. Every particle lives in a
+ * fixed set of float arrays, one per property, so emitting and updating them
+ * never allocates. A dead particle's slot is reused right away by moving the
+ * last particle into it, the same way the EntityStore recycles entities.
+ *
+ * Particles are drawn with whatever batch the state is already drawing with.
+ * As long as every emitter's region comes from the same atlas as the rest of
+ * the sprites, all of them go out in the same draw call; only the color of
+ * each quad changes, which doesn't flush the batch.
+ *
+ * The capacity is a budget shared by every effect. When frames start taking
+ * longer than FRAME_BUDGET the budget shrinks, so effects get thinner instead
+ * of the game getting slower, and it grows back once frames are fast again.
+ *
+ * Particles are only for show. They use their own random numbers and never
+ * touch the GameWorld, so they can't change how a run or a replay plays out.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ParticleSystem {
+	// Longest a frame should take, in seconds. A little over 1/60 so vsync
+	// jitter alone doesn't count as a slow frame.
+	public static final float FRAME_BUDGET = 1f / 50;
+	// How much of the latest frame time goes into the smoothed one, so a single
+	// slow frame doesn't thin out the effects
+	private static final float SMOOTHING = .1f;
+	// How much the budget shrinks for every slow frame, and what fraction of
+	// the capacity it grows back by for every fast one
+	private static final float SHRINK = .9f;
+	private static final float GROW = 1f / 120;
+	// Smallest the budget gets, as a fraction of the capacity
+	private static final float MIN_BUDGET = 1f / 16;
+
+	/**
+	 * Describes one kind of effect: what its particles look like and how they
+	 * move. Set the fields once when the state is created.
+	 */
+	public static class Emitter {
+		// What each particle is drawn with; should come from the sprites' atlas
+		public final TextureRegion region;
+		// The particle's color; it fades out over its life
+		public final Color color = new Color(Color.WHITE);
+		// How many particles one burst makes at the full budget
+		public int count = 1;
+		// Direction the particles fly in, in degrees (90 is up), and how far
+		// either side of it they can stray
+		public float angle = 90, spread = 180;
+		// Slowest and fastest speed, in pixels per second
+		public float minSpeed = 0, maxSpeed = 0;
+		// Pull towards the bottom of the screen, in pixels per second squared;
+		// negative values make particles rise
+		public float gravity = 0;
+		// Shortest and longest life, in seconds
+		public float minLife = .5f, maxLife = .5f;
+		// Size at birth and at death, in pixels
+		public float startSize = 4, endSize = 4;
+
+		/**
+		 * Emitter constructor
+		 *
+		 * @param region
+		 *            what each particle is drawn with
+		 */
+		public Emitter(TextureRegion region) {
+			this.region = region;
+		}
+	}
+
+	// The kinds of effect, indexed by the numbers passed to emit()
+	private final Emitter[] emitters;
+	// Which emitter each particle came from
+	private final byte[] type;
+	// Position and velocity of each particle
+	private final float[] x, y, vx, vy;
+	// How long each particle has lived and how long it will live, in seconds
+	private final float[] age, life;
+	// How many particles are alive
+	private int count = 0;
+	// How many particles may be alive right now
+	private int budget;
+	// The frame time the budget reacts to, smoothed over a few frames
+	private float frameTime = 0;
+
+	/**
+	 * ParticleSystem constructor
+	 *
+	 * @param capacity
+	 *            the most particles that can ever be alive at once
+	 * @param emitters
+	 *            the kinds of effect, at most 128
+	 */
+	public ParticleSystem(int capacity, Emitter... emitters) {
+		this.emitters = emitters;
+		type = new byte[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		age = new float[capacity];
+		life = new float[capacity];
+		budget = capacity;
+	}
+
+	/**
+	 * Makes a burst of particles, as many as the emitter's count scaled by how
+	 * much of the budget is left after slow frames
+	 *
+	 * @param emitter
+	 *            which of the emitters to use
+	 * @param px
+	 *            the x position the particles start at
+	 * @param py
+	 *            the y position the particles start at
+	 */
+	public void emit(int emitter, float px, float py) {
+		Emitter e = emitters[emitter];
+		// Thin the burst out as much as the budget has shrunk, rounding at random
+		// so small bursts still happen some of the time
+		float scaled = e.count * (float) budget / type.length;
+		int n = (int) scaled + (MathUtils.random() < scaled - (int) scaled ? 1 : 0);
+		for (int k = 0; k < n && count < budget; k++) {
+			int i = count++;
+			type[i] = (byte) emitter;
+			x[i] = px;
+			y[i] = py;
+			float direction = e.angle + MathUtils.random(-e.spread, e.spread);
+			float speed = MathUtils.random(e.minSpeed, e.maxSpeed);
+			vx[i] = MathUtils.cosDeg(direction) * speed;
+			vy[i] = MathUtils.sinDeg(direction) * speed;
+			age[i] = 0;
+			life[i] = MathUtils.random(e.minLife, e.maxLife);
+		}
+	}
+
+	/**
+	 * Moves every particle and removes the ones that have died
+	 *
+	 * @param dt
+	 *            the time since the last update, in seconds
+	 */
+	public void update(float dt) {
+		for (int i = 0; i < count; i++) {
+			age[i] += dt;
+			if (age[i] >= life[i]) {
+				// Move the last particle here and look at this slot again
+				remove(i);
+				i--;
+				continue;
+			}
+			vy[i] -= emitters[type[i]].gravity * dt;
+			x[i] += vx[i] * dt;
+			y[i] += vy[i] * dt;
+		}
+	}
+
+	/**
+	 * Shrinks the budget after slow frames and grows it back after fast ones.
+	 * Call it once a frame.
+	 *
+	 * @param delta
+	 *            how long the last frame took, in seconds
+	 */
+	public void adapt(float delta) {
+		frameTime += (delta - frameTime) * SMOOTHING;
+		int least = Math.max(1, (int) (type.length * MIN_BUDGET));
+		if (frameTime > FRAME_BUDGET) {
+			budget = Math.max(least, (int) (budget * SHRINK));
+		} else {
+			budget = Math.min(type.length, budget + Math.max(1, (int) (type.length * GROW)));
+		}
+	}
+
+	/**
+	 * Draws every particle. The batch's color is put back afterwards.
+	 *
+	 * @param batch
+	 *            the batch, which must be drawing
+	 */
+	public void draw(Batch batch) {
+		float packed = batch.getPackedColor();
+		for (int i = 0; i < count; i++) {
+			Emitter e = emitters[type[i]];
+			float t = age[i] / life[i];
+			float size = e.startSize + (e.endSize - e.startSize) * t;
+			batch.setColor(e.color.r, e.color.g, e.color.b, e.color.a * (1 - t));
+			batch.draw(e.region, x[i] - size / 2, y[i] - size / 2, size, size);
+		}
+		batch.setColor(packed);
+	}
+
+	/**
+	 * Removes a particle by moving the last one into its slot
+	 *
+	 * @param i
+	 *            the index of the particle
+	 */
+	private void remove(int i) {
+		int last = --count;
+		type[i] = type[last];
+		x[i] = x[last];
+		y[i] = y[last];
+		vx[i] = vx[last];
+		vy[i] = vy[last];
+		age[i] = age[last];
+		life[i] = life[last];
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many particles are alive
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 *
+	 * @return how many particles may be alive right now
+	 */
+	public int getBudget() {
+		return budget;
+	}
+}
@@ -0,0 +1,294 @@
+package sprites;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import level.Chunk;
+
+/**
+ * The BlockStore holds every green bar in the game. A single row consists of
+ * both a left and right green rectangle with a gap between them. Instead of
+ * one object per row, each property of a row is kept in its own array of
+ * floats, so going over all the rows reads memory in order and nothing is
+ * allocated while the game runs.
+ *
+ * Rows are always recycled by taking the highest one and moving it below the
+ * lowest one, so the arrays form a ring sorted from lowest to highest: only
+ * the slot of the lowest row changes. Rows are looked up by their place in
+ * that order, 0 being the lowest.
+ *
+ * Where each row's gap is and whether it moves come from the chunks of a
+ * LevelGenerator. The hazards on top of the rows live in an EntityStore and
+ * find their row by its slot, which stays the same until the row is recycled.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class BlockStore {
+	// Offset the right rectangle from the left
+	private static final int BLOCK_OFFSET = 3;
+	// How far left of 0 the left half of a row can be. This allows the circle to
+	// move off the screen without falling and prevents us from resizing the
+	// block texture.
+	public static final int SLIDE_RANGE = 135;
+	// The height used when spacing out the first rows
+	public static final int BLOCK_HEIGHT = 20;
+	// The size of each half of a row; the same as the greenBar sprite
+	public static final int WIDTH = 175;
+	public static final int HEIGHT = 30;
+	// The x position of the left half of each row
+	private final float[] x;
+	// The y position of each row
+	private final float[] y;
+	// The width of each half of a row
+	private final float[] width;
+	// The space between the two halves of a row
+	private final float[] gap;
+	// How fast each row slides sideways in pixels per second
+	private final float[] speed;
+	// How many rows have been added
+	private int size = 0;
+	// Slot of the lowest row
+	private int lowest = 0;
+
+	/**
+	 * BlockStore constructor
+	 *
+	 * @param capacity
+	 *            the most rows the store can hold
+	 */
+	public BlockStore(int capacity) {
+		x = new float[capacity];
+		y = new float[capacity];
+		width = new float[capacity];
+		gap = new float[capacity];
+		speed = new float[capacity];
+	}
+
+	/**
+	 * Adds a row above every row already in the store
+	 *
+	 * @param rowY
+	 *            the vertical position of the new row
+	 * @param chunk
+	 *            the chunk describing the row
+	 * @param row
+	 *            which row of the chunk to use
+	 * @return the slot the row is stored in
+	 */
+	public int add(float rowY, Chunk chunk, int row) {
+		set(size, rowY, chunk, row);
+		return size++;
+	}
+
+	/**
+	 * Moves the highest row to a new height, which has to be below the lowest
+	 * row, so it becomes the new lowest row. This way rows that go off screen are
+	 * reused instead of deleting and creating new ones.
+	 *
+	 * @param rowY
+	 *            the new y position of the row
+	 * @param chunk
+	 *            the chunk describing the row
+	 * @param row
+	 *            which row of the chunk to use
+	 * @return the slot the row is stored in
+	 */
+	public int recycleTop(float rowY, Chunk chunk, int row) {
+		int top = slot(size - 1);
+		set(top, rowY, chunk, row);
+		lowest = top;
+		return top;
+	}
+
+	/**
+	 * Copies every row of another store into this one
+	 *
+	 * @param other
+	 *            the store to copy; must not hold more rows than this one can
+	 */
+	public void set(BlockStore other) {
+		int n = other.size;
+		System.arraycopy(other.x, 0, x, 0, n);
+		System.arraycopy(other.y, 0, y, 0, n);
+		System.arraycopy(other.width, 0, width, 0, n);
+		System.arraycopy(other.gap, 0, gap, 0, n);
+		System.arraycopy(other.speed, 0, speed, 0, n);
+		size = n;
+		lowest = other.lowest;
+	}
+
+	/**
+	 * Slides the moving rows, turning them around when they reach either end of
+	 * SLIDE_RANGE
+	 *
+	 * @param dt
+	 *            the length of the tick in seconds
+	 */
+	public void update(float dt) {
+		for (int s = 0; s < size; s++) {
+			if (speed[s] == 0) {
+				continue;
+			}
+			x[s] += speed[s] * dt;
+			if (x[s] < -SLIDE_RANGE) {
+				x[s] = -SLIDE_RANGE;
+				speed[s] = -speed[s];
+			} else if (x[s] > 0) {
+				x[s] = 0;
+				speed[s] = -speed[s];
+			}
+		}
+	}
+
+	/**
+	 * Finds the lowest row whose top edge is above a height
+	 *
+	 * @param height
+	 *            the height to search for
+	 * @return the index of the row, or size() if every row is below the height
+	 */
+	public int firstAbove(float height) {
+		int low = 0;
+		int high = size;
+		// Binary search over the sorted ring
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (y[slot(mid)] + HEIGHT > height) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Copies the collision rectangle of the left half of a row
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @param out
+	 *            the rectangle to fill in
+	 * @return the same rectangle
+	 */
+	public Rectangle getBoundsLeft(int i, Rectangle out) {
+		int s = slot(i);
+		return out.set(x[s], y[s], width[s], HEIGHT);
+	}
+
+	/**
+	 * Copies the collision rectangle of the right half of a row. It sticks out a
+	 * little to the left so the circle can't slip into the gap from the side.
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @param out
+	 *            the rectangle to fill in
+	 * @return the same rectangle
+	 */
+	public Rectangle getBoundsRight(int i, Rectangle out) {
+		int s = slot(i);
+		return out.set(x[s] + width[s] + gap[s] - BLOCK_OFFSET, y[s], width[s] + BLOCK_OFFSET, HEIGHT);
+	}
+
+	/**
+	 * Copies a row of a chunk into a slot
+	 *
+	 * @param s
+	 *            the slot to fill in
+	 * @param rowY
+	 *            the vertical position of the row
+	 * @param chunk
+	 *            the chunk describing the row
+	 * @param row
+	 *            which row of the chunk to use
+	 */
+	private void set(int s, float rowY, Chunk chunk, int row) {
+		x[s] = chunk.leftX[row];
+		y[s] = rowY;
+		width[s] = WIDTH;
+		gap[s] = chunk.gap[row];
+		speed[s] = chunk.speed[row];
+	}
+
+	/**
+	 * Turns an index in height order into a slot in the arrays
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @return the slot the row is stored in
+	 */
+	private int slot(int i) {
+		int s = lowest + i;
+		return s < size ? s : s - size;
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @return x-position of the left half of the row
+	 */
+	public float getLeftX(int i) {
+		return x[slot(i)];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @return x-position of the right half of the row
+	 */
+	public float getRightX(int i) {
+		int s = slot(i);
+		return x[s] + width[s] + gap[s];
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @return y-position of the row
+	 */
+	public float getY(int i) {
+		return y[slot(i)];
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the slot of the row, as returned by add() or recycleTop()
+	 * @return x-position of the left half of the row
+	 */
+	public float getSlotX(int s) {
+		return x[s];
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the slot of the row, as returned by add() or recycleTop()
+	 * @return y-position of the row
+	 */
+	public float getSlotY(int s) {
+		return y[s];
+	}
+
+	/**
+	 *
+	 * @return y-position of the highest row
+	 */
+	public float getTopY() {
+		return y[slot(size - 1)];
+	}
+
+	/**
+	 *
+	 * @return how many rows are in the store
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -1,53 +1,54 @@
 package sprites;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Sprite;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector3;
 
+import world.GameWorld;
+import world.WorldConfig;
+
 /**
  * The Circle class defines what the red ball from the PlayState is. It has
  * methods to manipulate the circle such as horizontal movement, updating and
- * setting the position, and collision detection.
+ * setting the position, and reacting to collisions. During a tick the circle
+ * only collects how far it wants to move; the world then sweeps that movement
+ * against the blocks and moves the circle as far as it can go. The circle is
+ * pure game logic and never touches textures or audio; PlayState draws
+ * the redCircle sprite over it.
  * 
  * @author Malyq McElroy
  *
  */
 public class Circle {
 	// Rate at which the circle falls (units/delta time)
-	private static final int GRAVITY = 42;
-	// Offset used for the rectangles around the circle, later used for
-	// collision detection
-	private static final int RECTANGLE_OFFSET = 8;
-	// Integer values corresponding to which of the circle's sides hit something
-	// else
-	private static final int BOTTOM_HIT = 1;
-	private static final int LEFT_HIT = 2;
-	private static final int RIGHT_HIT = 3;
-	private static final int TOP_HIT = 4;
+	private float gravity;
+	// The width and height of the circle; the same as the redCircle sprite
+	public static final int SIZE = 12;
 	// Used to forbid the circle from double jumping
 	public boolean jumping = false;
-	// Create bounds around all sides of the circle for collision detection
-	public Rectangle circleRect, bottom, left, right, top;
-	// Texture that represents a circle
-	private Texture circle;
-	// Integer values to determine the position and speed of the circle
+	// The rectangle around the circle, used for collision detection
+	public Rectangle circleRect;
+	// The position and speed of the circle. The position always matches the
+	// corner of circleRect.
 	public Vector3 position, velocity;
-	// Sprite that defines a circle
-	public Sprite sprite;
-	// Audio for when the ball jumps
-	private Sound jumpSound;
 	// Speed in which the ball moves when the arrow keys are pressed (will later
 	// be scaled by delta)
-	private int horizontalSpeed = 95;
+	private float horizontalSpeed;
 	// The distance in which the circle jumps in the y direction
 	private int verticalJump = 7;
+	// How many ticks after leaving a block the circle can still jump, or -1 for
+	// any time until it jumps
+	private int coyoteTicks;
+	// How many ticks since the circle last stood on a block
+	private int airTicks = 0;
+	// Where the circle was at the start of the current tick, used to smooth out
+	// drawing between ticks
+	private float prevX, prevY;
+	// How far the circle wants to move this tick
+	private float moveX, moveY;
 
 	/**
-	 * Circle constructor
+	 * Circle constructor with the game's own gravity and speed
 	 * 
 	 * @param x
 	 *            the x coordinate of the circle's starting position
@@ -55,97 +56,88 @@ public class Circle {
 	 *            the y coordinate of the circle's starting position
 	 */
 	public Circle(int x, int y) {
-		// Initialize the texture
-		circle = new Texture("redCircle.png");
+		this(x, y, new WorldConfig());
+	}
+
+	/**
+	 * Circle constructor
+	 * 
+	 * @param x
+	 *            the x coordinate of the circle's starting position
+	 * @param y
+	 *            the y coordinate of the circle's starting position
+	 * @param config
+	 *            where the gravity, sideways speed and coyote time come from
+	 */
+	public Circle(int x, int y, WorldConfig config) {
+		gravity = config.gravity;
+		horizontalSpeed = config.horizontalSpeed;
+		coyoteTicks = config.coyoteTicks;
 		// Set the starting position of the circle to the parameters of the
 		// constructor
 		position = new Vector3(x, y, 0);
 		// The circle begins with no initial speed
 		velocity = new Vector3(0, 0, 0);
 		// The rectangle around the entire circle object
-		circleRect = new Rectangle(position.x, position.y, circle.getWidth(), circle.getHeight());
-		// Rectangle at the bottom of the circle
-		bottom = new Rectangle(position.x, position.y, circle.getWidth(), RECTANGLE_OFFSET);
-		// Rectangle at the top of the circle
-		top = new Rectangle(position.x, position.y + circleRect.getHeight() - RECTANGLE_OFFSET, circle.getWidth(),
-				RECTANGLE_OFFSET);
-		// Rectangle at the left of the circle
-		left = new Rectangle(position.x, position.y + RECTANGLE_OFFSET, RECTANGLE_OFFSET,
-				circleRect.getHeight() - (RECTANGLE_OFFSET * 2));
-		// Rectangle at the right of the circle
-		right = new Rectangle(position.x + circleRect.getWidth() - RECTANGLE_OFFSET, position.y + RECTANGLE_OFFSET,
-				RECTANGLE_OFFSET, circleRect.getHeight() - (RECTANGLE_OFFSET * 2));
-		// Initialize the sprite
-		sprite = new Sprite(circle);
-		// Set the initial position of the circle
-		this.setPosition(position.x, position.y);
-		// Initalize the audio
-		jumpSound = Gdx.audio.newSound(Gdx.files.internal("jumpSound.ogg"));
+		circleRect = new Rectangle(position.x, position.y, SIZE, SIZE);
+		storePrevious();
 	}
 
 	/**
 	 * Because the update method is repeatedly called it allows the circle to always
-	 * be falling unless it hits a block, though that is handled elsewhere.
+	 * be falling unless it lands on a block, though that is handled elsewhere.
 	 * 
 	 * @param dt
 	 *            Short for delta time, it allows the speed to scale off of the
 	 *            user's frames
 	 */
 	public void update(float dt) {
+		// Count the tick as in the air; landing this tick sets it back to 0
+		airTicks++;
 		// The circle is constantly falling in proportion to gravity
-		velocity.y -= GRAVITY * dt;
-		// Because the circle is falling, we need to adjust the position of all
-		// the rectangles so the collision detection is accurate
-		bottom.y += velocity.y;
-		circleRect.y += velocity.y;
-		top.y += velocity.y;
-		left.y += velocity.y;
-		right.y += velocity.y;
-		// Update the position of the sprite
-		sprite.setPosition(circleRect.x, circleRect.y);
+		velocity.y -= gravity * dt;
+		// The velocity is measured in pixels per frame at 60 fps, so scale it by the
+		// length of the tick
+		moveY += velocity.y * GameWorld.REFERENCE_FPS * dt;
 	}
 
 	/**
-	 * Called when the left arrow key is pressed. Adjusts the X position of all the
-	 * rectangles and the sprite
+	 * Called when the left arrow key is pressed
 	 * 
 	 * @param dt
 	 *            Short for delta time, it allows the speed to scale off of the
 	 *            user's frames
 	 */
 	public void moveLeft(float dt) {
-		// Move all the rectangle components to the left based on the speed
-		circleRect.x -= (horizontalSpeed * dt);
-		bottom.x -= (horizontalSpeed * dt);
-		top.x -= (horizontalSpeed * dt);
-		left.x -= (horizontalSpeed * dt);
-		right.x -= (horizontalSpeed * dt);
-		// Update the position of the sprite
-		sprite.setPosition(circleRect.x, circleRect.y);
+		moveX -= (horizontalSpeed * dt);
 	}
 
 	/**
-	 * Called when the right arrow key is pressed. Adjusts the X position of all the
-	 * rectangles and the sprite
+	 * Called when the right arrow key is pressed
 	 * 
 	 * @param dt
 	 *            Short for delta time, it allows the speed to scale off of the
 	 *            user's frames
 	 */
 	public void moveRight(float dt) {
-		// Move all the rectangle components to the right based on the speed
-		circleRect.x += (horizontalSpeed * dt);
-		bottom.x += (horizontalSpeed * dt);
-		top.x += (horizontalSpeed * dt);
-		left.x += (horizontalSpeed * dt);
-		right.x += (horizontalSpeed * dt);
-		// Update the position of the sprite
-		sprite.setPosition(circleRect.x, circleRect.y);
+		moveX += (horizontalSpeed * dt);
+	}
+
+	/**
+	 * Moves the circle by part of the movement it collected this tick and keeps
+	 * the rest for later
+	 * 
+	 * @param time
+	 *            how much of the movement to use, from 0 to 1
+	 */
+	public void advance(float time) {
+		setPosition(circleRect.x + moveX * time, circleRect.y + moveY * time);
+		moveX -= moveX * time;
+		moveY -= moveY * time;
 	}
 
 	/**
-	 * Sets the position of the circle by setting the positions of all the rectangle
-	 * components
+	 * Sets the position of the circle
 	 * 
 	 * @param x
 	 *            the new x position
@@ -153,136 +145,122 @@ public class Circle {
 	 *            the new y position
 	 */
 	public void setPosition(float x, float y) {
-		// Update the large rectangle and the bottom rectangle
 		circleRect.x = x;
 		circleRect.y = y;
-		bottom.x = x;
-		bottom.y = y;
-		// The left, right, and top rectangles all must be drawn with the same
-		// offsets they were initialized with
-		left.x = x;
-		left.y = y + RECTANGLE_OFFSET;
-		right.x = x + circleRect.getWidth() - RECTANGLE_OFFSET;
-		right.y = y + RECTANGLE_OFFSET;
-		top.x = x;
-		top.y = y + circle.getHeight() - RECTANGLE_OFFSET;
-		// Update the position of the sprite
-		sprite.setPosition(x, y);
-	}
-
-	/**
-	 * Method for collision detection. Returns an int based on which rectangle
-	 * collided
-	 * 
-	 * @param r
-	 *            the rectangle that collided with one of the circle's rectangles
-	 * 
-	 * @return an integer value depending on which rectangle collided. Returns -1 if
-	 *         nothing collided
-	 */
-	public int hits(Rectangle r) {
-		// Note: If we check for the bottom first then we will never execute the
-		// other checks.
-
-		// Check if the left rectangle collided
-		if (r.overlaps(left)) {
-			return LEFT_HIT;
-		}
-		// Check if the right rectangle collided
-		else if (r.overlaps(right)) {
-			return RIGHT_HIT;
-		}
-		// Check if the bottom rectangle collided
-		else if (r.overlaps(bottom)) {
-			return BOTTOM_HIT;
-		}
-		// Check if the top rectangle collided
-		else if (r.overlaps(top)) {
-			return TOP_HIT;
-		}
-		// No rectangles collided, return -1
-		return -1;
+		position.x = x;
+		position.y = y;
 	}
 
 	/**
 	 * Method that allows the circle to jump
+	 * 
+	 * @return true if the circle jumped, false if it was already in the air
 	 */
-	public void jump() {
+	public boolean jump() {
 		// In order to prevent double jumping, we first must make sure the
-		// circle isn't already jumping
-		if (jumping == false) {
+		// circle isn't already jumping, and hasn't left its block too long ago
+		if (jumping == false && (coyoteTicks < 0 || airTicks <= coyoteTicks)) {
 			// Update the y velocity
 			velocity.y = verticalJump;
-			// Play the jumping sound at max volume
-			jumpSound.play(1f);
 			// The circle is now jumping
 			jumping = true;
+			return true;
 		}
+		return false;
 	}
 
 	/**
-	 * Method the either adjusts the x or y position depending on what part of the
-	 * circle collided
+	 * Called when the circle runs into a block
 	 * 
-	 * @param type
-	 *            an integer value that corresponds to which rectangle collided
-	 * @param x
-	 *            the new x position of the circle
-	 * @param y
-	 *            the new y position of the circle
+	 * @param normalX
+	 *            -1 or 1 if a side of the block was hit, otherwise 0
+	 * @param normalY
+	 *            1 if the circle landed on top of the block, -1 if it hit the
+	 *            bottom, otherwise 0
 	 */
-	public void action(int type, float x, float y) {
+	public void hit(int normalX, int normalY) {
 		// If the top or bottom collide
-		if (type == BOTTOM_HIT || type == TOP_HIT) {
-			// Reset the y velocity, essentially making it stop falling
+		if (normalY != 0) {
+			// Reset the y velocity, essentially making it stop falling, and stop
+			// whatever vertical movement is left this tick
 			velocity.y = 0;
-			// Update the position with the new y value and the same x value
-			setPosition(circleRect.x, y);
+			moveY = 0;
 			// Once the circle's bottom touches the block's surface, it is
 			// allowed to jump again
-			if (type == BOTTOM_HIT) {
+			if (normalY > 0) {
 				jumping = false;
+				airTicks = 0;
 			}
 		}
-		// If the left or right collide
-		if (type == LEFT_HIT || type == RIGHT_HIT) {
-
-			// Reset the y velocity, essentially making it stop falling
-			/////// velocity.y = 0;
-
-			// Update the position with the new x value and the same y value
-			setPosition(x, circleRect.y);
+		// If the left or right collide, stop moving sideways but keep falling
+		if (normalX != 0) {
+			moveX = 0;
 		}
 	}
 
 	/**
-	 * Basic method for drawing the sprite
-	 * 
-	 * @param sb
-	 *            the SpriteBatch needed to draw the circle sprite
+	 * Copies the whole state of another circle into this one
+	 *
+	 * @param other
+	 *            the circle to copy
 	 */
-	public void draw(SpriteBatch sb) {
-		sprite.draw(sb);
+	public void set(Circle other) {
+		jumping = other.jumping;
+		circleRect.set(other.circleRect);
+		position.set(other.position);
+		velocity.set(other.velocity);
+		gravity = other.gravity;
+		horizontalSpeed = other.horizontalSpeed;
+		verticalJump = other.verticalJump;
+		coyoteTicks = other.coyoteTicks;
+		airTicks = other.airTicks;
+		prevX = other.prevX;
+		prevY = other.prevY;
+		moveX = other.moveX;
+		moveY = other.moveY;
 	}
 
 	/**
-	 * Clean up any disposable objects
+	 * Forgets any movement that wasn't used this tick
 	 */
-	public void dispose() {
-		jumpSound.dispose();
-		circle.dispose();
+	public void clearMove() {
+		moveX = 0;
+		moveY = 0;
 	}
 
-	/////// GETTERS ////////
+	/**
+	 * Remembers the current position as the start of the tick. Also called after
+	 * the circle wraps around the screen so it doesn't slide across it.
+	 */
+	public void storePrevious() {
+		prevX = circleRect.x;
+		prevY = circleRect.y;
+	}
 
 	/**
 	 * 
-	 * @return the texture
+	 * @param alpha
+	 *            how far we are between the last tick and the next one, from 0
+	 *            to 1
+	 * @return the x position to draw the circle at
 	 */
-	public Texture getCircle() {
-		return circle;
+	public float getDrawX(float alpha) {
+		return MathUtils.lerp(prevX, circleRect.x, alpha);
 	}
 
+	/**
+	 * 
+	 * @param alpha
+	 *            how far we are between the last tick and the next one, from 0
+	 *            to 1
+	 * @return the y position to draw the circle at
+	 */
+	public float getDrawY(float alpha) {
+		return MathUtils.lerp(prevY, circleRect.y, alpha);
+	}
+
+	/////// GETTERS ////////
+
 	/**
 	 * 
 	 * @return the position vector
@@ -306,4 +284,20 @@ public class Circle {
 	public Rectangle getCircleRect() {
 		return circleRect;
 	}
+
+	/**
+	 * 
+	 * @return how far the circle still wants to move sideways this tick
+	 */
+	public float getMoveX() {
+		return moveX;
+	}
+
+	/**
+	 * 
+	 * @return how far the circle still wants to move vertically this tick
+	 */
+	public float getMoveY() {
+		return moveY;
+	}
 }
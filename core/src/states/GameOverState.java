@@ -3,41 +3,57 @@ package states;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.mygdx.game.FirstGame;
 
+import assets.Assets;
+import render.Backdrop;
+import ui.NumberText;
+import ui.UiRuntime;
+
 /**
- * Game state that shows a screen for when the user gets a game over. From here
- * the player can either retry or return to main menu.
+ * Game state that shows a screen for when the user gets a game over, with the
+ * score of the run and the player's best. From here the player can either
+ * retry or return to main menu.
  * 
  * @author Malyq McElroy
  *
  */
 public class GameOverState extends State {
 	// Offsets for the elements to be displayed on the game over screen
-	private static final int BG_OFFSET = 80;
 	private static final int SCORE_OFFSET = 55;
+	private static final int BEST_OFFSET_Y = 20;
 	private static final int GAMEOVER_OFFSET_X = 45;
 	private static final int GAMEOVER_OFFSET_Y = 35;
-	// Create a texture for the background
-	private Texture bg;
-	// Create a BitmapFont for displaying text
-	BitmapFont losingMessage = new BitmapFont();
-	BitmapFont scoreText = new BitmapFont();
-	// Create a stage for handling GUI elements
+	// Loads the backdrop and then builds a game over screen
+	public static final StateFactory FACTORY = new StateFactory() {
+		@Override
+		public void queueAssets(Assets assets) {
+			assets.queue(Assets.BACKDROP, Texture.class, Assets.BACKDROP_PARAMETERS);
+		}
+
+		@Override
+		public State create(GameStateManager gsm) {
+			return new GameOverState(gsm);
+		}
+	};
+	// The space drawn behind everything
+	private Backdrop backdrop;
+	// The red game over message, laid out once
+	private BitmapFontCache losingMessage;
+	// The player's score and best score, formatted once instead of every frame
+	private NumberText scoreLabel, bestLabel;
+	// The shared stage for handling GUI elements
 	private Stage stage;
 	// Create buttons for returning to the main menu and retrying
 	private TextButton menuButton, playButton;
-	// A skin takes a json file which defines basic operations of all the GUI
-	// elements available
-	private Skin skin;
+	// Skin, stage and font shared with the other states
+	private final UiRuntime ui;
 	// Create a variable to expand the scope of the GameStateManager
 	final GameStateManager gsmGlobal;
 
@@ -50,17 +66,22 @@ public class GameOverState extends State {
 	public GameOverState(GameStateManager gsm) {
 		// Call super's constructor
 		super(gsm);
-		// Texture for the background
-		bg = new Texture("spaceBigger.png");
+		// The background
+		backdrop = new Backdrop(acquire(Assets.BACKDROP, Texture.class));
+		ui = gsm.getUi();
+		// Lay out the text with the shared font
+		losingMessage = ui.newText("GAME OVER", Color.RED);
+		scoreLabel = new NumberText(ui.getFont(), "Your Score: ", 2);
+		bestLabel = new NumberText(ui.getFont(), "Best: ", 2);
 		// Set the position of the camera
 		cam.setToOrtho(false, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
 		// Expand the scope of the GSM
 		gsmGlobal = gsm;
-		// Create a new stage and skin for GUI elements
-		stage = new Stage();
-		skin = new Skin(Gdx.files.internal("uiskin.json"));
+		// Use the shared stage; the buttons are only added to it while this screen
+		// is on top
+		stage = ui.getStage();
 		// Create a main menu button
-		menuButton = new TextButton("Main Menu", skin);
+		menuButton = new TextButton("Main Menu", ui.getSkin());
 		// Set the width and height of the button
 		menuButton.setWidth(200f);
 		menuButton.setHeight(50f);
@@ -70,12 +91,12 @@ public class GameOverState extends State {
 		menuButton.addListener(new ClickListener() {
 			@Override
 			public void clicked(InputEvent event, float x, float y) {
-				// Transfer control to a new menu state
-				gsmGlobal.set(new MenuState(gsmGlobal), 0);
+				// Load a new menu state while this screen keeps drawing
+				gsmGlobal.load(MenuState.FACTORY, 0);
 			}
 		});
 		// Create a retry button
-		playButton = new TextButton("Retry", skin);
+		playButton = new TextButton("Retry", ui.getSkin());
 		// Set the width and height of the button
 		playButton.setWidth(200f);
 		playButton.setHeight(50f);
@@ -85,52 +106,55 @@ public class GameOverState extends State {
 		playButton.addListener(new ClickListener() {
 			@Override
 			public void clicked(InputEvent event, float x, float y) {
-				// Transfer control to a new play state
-				gsmGlobal.set(new PlayState(gsmGlobal), 0);
+				// Load a new play state while this screen keeps drawing
+				gsmGlobal.load(PlayState.FACTORY, 0);
 			}
 		});
-		// Add both buttons to the stage
+	}
+
+	@Override
+	public void enter() {
+		// Add both buttons to the stage; it only receives input while this screen
+		// is on top
 		stage.addActor(menuButton);
 		stage.addActor(playButton);
 		Gdx.input.setInputProcessor(stage);
-		;
 	}
 
 	@Override
-	public void render(SpriteBatch sb) {
+	public void exit() {
+		// Leave the stage empty for the next state
+		ui.clear();
+	}
+
+	@Override
+	public void render(SpriteBatch sb, float alpha) {
 		// Establish the camera frame of reference
 		sb.setProjectionMatrix(cam.combined);
 		// Begin drawing on the batch
 		sb.begin();
 		// Draw the background
-		sb.draw(bg, 0, cam.position.y - (cam.viewportWidth / 2) - BG_OFFSET, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
-		// Draw the losing message on the screen and color it red
-		losingMessage.draw(sb, "GAME OVER", cam.viewportWidth / 2 - GAMEOVER_OFFSET_X,
+		backdrop.draw(sb, cam, 0);
+		// Draw the losing message on the screen in red
+		losingMessage.setPosition(cam.viewportWidth / 2 - GAMEOVER_OFFSET_X,
 				cam.position.y - (cam.viewportWidth / 2) - GAMEOVER_OFFSET_Y + (cam.viewportHeight / 2));
-		losingMessage.setColor(Color.RED);
+		losingMessage.draw(sb);
 		// Draw the player's score on the screen
-		scoreText.draw(sb, "Your Score: " + String.format("%.2f", gsmGlobal.scoreVar),
-				cam.viewportWidth / 2 - SCORE_OFFSET, cam.position.y - (cam.viewportWidth / 2));
+		scoreLabel.setValue(gsmGlobal.scoreVar);
+		scoreLabel.draw(sb, cam.viewportWidth / 2 - SCORE_OFFSET, cam.position.y - (cam.viewportWidth / 2));
+		// Draw the personal best under it; the history already includes this run
+		bestLabel.setValue(gsmGlobal.getHistory().getBest());
+		bestLabel.draw(sb, cam.viewportWidth / 2 - SCORE_OFFSET,
+				cam.position.y - (cam.viewportWidth / 2) - BEST_OFFSET_Y);
 		// End drawing on the batch
 		sb.end();
-		// Draw the contents of the stage (the buttons)
-		sb.begin();
+		// Draw the contents of the stage (the buttons). The stage begins and ends
+		// the batch itself with its own camera.
 		stage.draw();
-		sb.end();
 	}
 
 	@Override
 	public void update(float dt) {
 	}
 
-	@Override
-	public void dispose() {
-		// Dispose of all excess objects
-		bg.dispose();
-		skin.dispose();
-		losingMessage.dispose();
-		scoreText.dispose();
-		stage.dispose();
-	}
-
 }
@@ -4,34 +4,326 @@ import java.util.Stack;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
 
+import assets.Assets;
+import audio.AudioService;
+import debug.FrameProfiler;
+import leaderboard.LeaderboardClient;
+import stats.RunHistory;
+import ui.UiRuntime;
+
+/**
+ * Keeps a stack of states and owns their whole lifecycle. A state is entered
+ * when it reaches the top of the stack, exited when it leaves the top, and
+ * disposed when it is removed. Transitions requested while a state is updating
+ * or handling input are applied at the start of the next update so a state is
+ * never disposed in the middle of its own code.
+ *
+ * load() is the usual way to change screens. It queues the files the next
+ * state needs and keeps updating and drawing the current state while they
+ * load in slices of LOAD_SLICE_MILLIS a frame, fading the screen out as it
+ * goes. The next state is only built once its files are loaded, so building it
+ * never hitches, and the screen fades back in once it is on top. If loading
+ * outlasts the fade a progress message is shown.
+ *
+ * @author Malyq McElroy
+ *
+ */
 public class GameStateManager {
+	// Longest the AssetManager may spend loading during one frame
+	public static final int LOAD_SLICE_MILLIS = 8;
+	// How long it takes to fade out or back in, in seconds
+	private static final float FADE_TIME = .2f;
 	public Stack<State> states;
     public float scoreVar;
-	public GameStateManager() {
+	// Shared textures and sounds used by every state
+	private final Assets assets;
+	// Skin, stage and font shared by every state
+	private final UiRuntime ui;
+	// Plays every sound and the music
+	private final AudioService audio;
+	// The player's best scores and past runs
+	private final RunHistory history;
+	// Sends runs to the online leaderboard, or null when there isn't one
+	private LeaderboardClient leaderboard;
+	// Finds states that were never disposed when debugging
+	private final ResourceTracker tracker;
+	// Times the phases of each frame when profiling
+	private final FrameProfiler profiler;
+	// Transitions waiting to be applied; a null state means pop
+	private final Array<State> pending;
+	private final BooleanArray pendingReplace;
+	// Builds the state being loaded, or null when nothing is loading
+	private StateFactory next;
+	// Score handed to the state being loaded
+	private float nextScore;
+	// True once the files of the state being loaded are all loaded
+	private boolean loaded;
+	// How dark the screen is, from 0 to 1. It starts dark so the first state
+	// fades in.
+	private float fade = 1;
+	// Whether transitions fade the screen at all
+	private boolean fading = true;
+	// The moment the tick being run ends, on the System.nanoTime() clock
+	private long tickTime = System.nanoTime();
+
+	public GameStateManager(Assets assets, UiRuntime ui, AudioService audio, RunHistory history) {
+		this.assets = assets;
+		this.ui = ui;
+		this.audio = audio;
+		this.history = history;
 		states = new Stack<State>();
+		tracker = new ResourceTracker();
+		profiler = new FrameProfiler();
+		pending = new Array<State>();
+		pendingReplace = new BooleanArray();
+	}
+
+	public Assets getAssets() {
+		return assets;
+	}
+
+	public UiRuntime getUi() {
+		return ui;
+	}
+
+	public AudioService getAudio() {
+		return audio;
+	}
+
+	public RunHistory getHistory() {
+		return history;
+	}
+
+	public LeaderboardClient getLeaderboard() {
+		return leaderboard;
+	}
+
+	/**
+	 * Sets where finished runs are sent
+	 *
+	 * @param leaderboard
+	 *            the client, or null to keep runs offline
+	 */
+	public void setLeaderboard(LeaderboardClient leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+
+	public ResourceTracker getTracker() {
+		return tracker;
+	}
+
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 *
+	 * @return the moment the tick being run ends, on the System.nanoTime()
+	 *         clock, so input can be matched to the tick it happened in
+	 */
+	public long getTickTime() {
+		return tickTime;
+	}
+
+	/**
+	 *
+	 * @return true while the next state's files are loading or the screen is
+	 *         fading out
+	 */
+	public boolean isLoading() {
+		return next != null;
+	}
+
+	/**
+	 * Turns on the debug mode that reports states surviving a transition
+	 *
+	 * @param enabled
+	 *            true to track leaks
+	 */
+	public void setLeakTracking(boolean enabled) {
+		tracker.setEnabled(enabled);
+	}
+
+	/**
+	 * Turns the fade between states on or off. Without it the current state is
+	 * shown until the next one is ready and then swapped straight away.
+	 *
+	 * @param enabled
+	 *            true to fade
+	 */
+	public void setFading(boolean enabled) {
+		fading = enabled;
+		if (!enabled) {
+			fade = 0;
+		}
+	}
+
+	/**
+	 * Replaces the state on top once the files the next state needs are loaded.
+	 * Requests made while another state is loading are ignored, so clicking a
+	 * button twice only starts one transition.
+	 *
+	 * @param factory
+	 *            queues the files and builds the next state
+	 * @param score
+	 *            the score to hand to the next state
+	 */
+	public void load(StateFactory factory, float score) {
+		if (next != null) {
+			return;
+		}
+		next = factory;
+		nextScore = score;
+		loaded = false;
+		factory.queueAssets(assets);
+	}
+
+	/**
+	 * Loads the files of the next state for a slice of the frame and moves the
+	 * fade along. Called once per frame, before the ticks.
+	 *
+	 * @param delta
+	 *            the length of the frame in seconds
+	 */
+	public void updateTransition(float delta) {
+		if (next == null) {
+			// Fade the state on top back in
+			fade = Math.max(0, fade - delta / FADE_TIME);
+			return;
+		}
+		if (!loaded) {
+			loaded = assets.update(LOAD_SLICE_MILLIS);
+		}
+		if (fading) {
+			fade = Math.min(1, fade + delta / FADE_TIME);
+		}
+		// Swap once the files are in and the old state has faded out
+		if (loaded && (!fading || fade >= 1)) {
+			StateFactory factory = next;
+			next = null;
+			set(factory.create(this), nextScore);
+		}
 	}
 
 	public void push(State sta) {
-		states.push(sta);
+		pending.add(sta);
+		pendingReplace.add(false);
 	}
 
 	public void pop() {
-		states.pop();
+		pending.add(null);
+		pendingReplace.add(false);
 	}
 
 	public void set(State sta,float score) {
 		scoreVar = score;
-		states.pop();
-		states.push(sta);
+		pending.add(sta);
+		pendingReplace.add(true);
 	}
 
-	public void render(SpriteBatch sb) {
-		states.peek().render(sb);
+	public void render(SpriteBatch sb, float alpha) {
+		// A state pushed before the first update still needs to be entered
+		applyPending();
+		// Nothing is on the stack until the first state has loaded
+		if (!states.isEmpty()) {
+			states.peek().render(sb, alpha);
+		}
+		if (fade > 0) {
+			ui.drawFade(sb, fade);
+		}
+		// Loading is taking longer than the fade, so say how far along it is
+		if (next != null && !loaded && (fade >= 1 || states.isEmpty())) {
+			ui.drawProgress(sb, assets.getProgress());
+		}
 	}
 
-	public void update(float dt) {
-		states.peek().update(dt);
+	/**
+	 * Runs one tick of the state on top
+	 *
+	 * @param dt
+	 *            the length of the tick, in seconds
+	 * @param tickTime
+	 *            the moment the tick ends, on the System.nanoTime() clock
+	 */
+	public void update(float dt, long tickTime) {
+		this.tickTime = tickTime;
+		// Apply anything requested by input since the last frame
+		applyPending();
+		if (!states.isEmpty()) {
+			states.peek().update(dt);
+		}
+		// Apply anything the state requested while updating
+		applyPending();
+	}
+
+	/**
+	 * Forwards an application pause to the state on top
+	 */
+	public void pause() {
+		if (!states.isEmpty()) {
+			states.peek().pause();
+		}
+	}
+
+	/**
+	 * Forwards an application resume to the state on top
+	 */
+	public void resume() {
+		if (!states.isEmpty()) {
+			states.peek().resume();
+		}
+	}
+
+	/**
+	 * Exits and disposes every state, including any that were still waiting to be
+	 * pushed
+	 */
+	public void dispose() {
+		if (!states.isEmpty()) {
+			states.peek().exit();
+		}
+		while (!states.isEmpty()) {
+			states.pop().dispose();
+		}
+		for (State sta : pending) {
+			if (sta != null) {
+				sta.dispose();
+			}
+		}
+		pending.clear();
+		pendingReplace.clear();
+		next = null;
+	}
 
+	/**
+	 * Applies the queued transitions in the order they were requested
+	 */
+	private void applyPending() {
+		if (pending.size == 0) {
+			return;
+		}
+		for (int i = 0; i < pending.size; i++) {
+			State sta = pending.get(i);
+			// The state on top is always exited before anything changes
+			if (!states.isEmpty()) {
+				states.peek().exit();
+			}
+			// Popping and replacing both remove the old state for good
+			if ((sta == null || pendingReplace.get(i)) && !states.isEmpty()) {
+				states.pop().dispose();
+			}
+			if (sta != null) {
+				states.push(sta);
+			}
+			if (!states.isEmpty()) {
+				states.peek().enter();
+			}
+		}
+		pending.clear();
+		pendingReplace.clear();
+		// Anything that is alive but no longer on the stack has leaked
+		tracker.check(states);
 	}
 }
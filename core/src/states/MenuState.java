@@ -3,13 +3,12 @@ package states;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Slider;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField;
@@ -17,6 +16,10 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.mygdx.game.FirstGame;
 
+import assets.Assets;
+import render.Backdrop;
+import ui.UiRuntime;
+
 /**
  * Game state that shows a screen for the main menu. From here the player can
  * read the instructions and start a game.
@@ -27,22 +30,32 @@ import com.mygdx.game.FirstGame;
 public class MenuState extends State {
 	// Offsets for the elements to be displayed on the menu screen
 	private static final int INSTRUCTIONS_OFFSET = 55;
-	private static final int BG_OFFSET = 80;
-	// Create a texture for the background
-	private Texture bg;
-	// Create a stage for the button
+	// How to play the game
+	private static final String INSTRUCTIONS = " Use the arrow keys to move and the \n space bar to jump. Your goal is to \n avoid the sun at all costs, but be \n careful... everything will begin to \n move faster! ";
+	// Loads the backdrop and then builds a menu
+	public static final StateFactory FACTORY = new StateFactory() {
+		@Override
+		public void queueAssets(Assets assets) {
+			assets.queue(Assets.BACKDROP, Texture.class, Assets.BACKDROP_PARAMETERS);
+		}
+
+		@Override
+		public State create(GameStateManager gsm) {
+			return new MenuState(gsm);
+		}
+	};
+	// The space drawn behind everything
+	private Backdrop backdrop;
+	// The shared stage the button is added to
 	private Stage stage;
 	// Create a play button
 	private TextButton button;
-	// Create a skin for the stage
-	private Skin skin;
+	// Skin, stage and font shared with the other states
+	private final UiRuntime ui;
 	// Initialize a global variable for the gsm
 	final GameStateManager gsmGlobal;
-	// Create a BitmapFont for displaying text
-	BitmapFont instructions = new BitmapFont();
-	BitmapFont instructions2 = new BitmapFont();
-	BitmapFont instructions3 = new BitmapFont();
-	BitmapFont instructions4 = new BitmapFont();
+	// The game's instructions, laid out once
+	private BitmapFontCache instructions;
 
 	/**
 	 * MenuState constructor
@@ -55,14 +68,17 @@ public class MenuState extends State {
 		super(gsm);
 		// Expand the scope of the gsm
 		gsmGlobal = gsm;
-		bg = new Texture("spaceBigger.png");
+		backdrop = new Backdrop(acquire(Assets.BACKDROP, Texture.class));
+		ui = gsm.getUi();
+		// Lay out the instructions with the shared font
+		instructions = ui.newText(INSTRUCTIONS, Color.WHITE);
 		// Set the position of the camera
 		cam.setToOrtho(false, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
-		// Initialize the stage and corresponding skin
-		stage = new Stage();
-		skin = new Skin(Gdx.files.internal("uiskin.json"));
+		// Use the shared stage; the button is only added to it while the menu is
+		// on top
+		stage = ui.getStage();
 		// Create a play button
-		button = new TextButton("Play", skin);
+		button = new TextButton("Play", ui.getSkin());
 		// Set the width and height of the play button
 		button.setWidth(200f);
 		button.setHeight(50f);
@@ -72,31 +88,40 @@ public class MenuState extends State {
 		button.addListener(new ClickListener() {
 			@Override
 			public void clicked(InputEvent event, float x, float y) {
-				// Transfer control to a new play state
-				gsmGlobal.set(new PlayState(gsmGlobal), 0);
+				// Load a new play state while the menu keeps drawing
+				gsmGlobal.load(PlayState.FACTORY, 0);
 			}
 		});
-		// Add the button to the stage
+	}
+
+	@Override
+	public void enter() {
+		// Add the button to the stage; it only receives input while the menu is on
+		// top
 		stage.addActor(button);
 		Gdx.input.setInputProcessor(stage);
 	}
 
 	@Override
-	public void render(SpriteBatch sb) {
+	public void exit() {
+		// Leave the stage empty for the next state
+		ui.clear();
+	}
+
+	@Override
+	public void render(SpriteBatch sb, float alpha) {
 		// Establish the camera frame of reference
 		sb.setProjectionMatrix(cam.combined);
 		sb.begin();
 		// Draw the background onto the screen
-		sb.draw(bg, 0, cam.position.y - (cam.viewportWidth / 2) - BG_OFFSET, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
+		backdrop.draw(sb, cam, 0);
 		// Draw the game's instructions
-		instructions.draw(sb,
-				" Use the arrow keys to move and the \n space bar to jump. Your goal is to \n avoid the sun at all costs, but be \n careful... everything will begin to \n move faster! ",
-				cam.viewportWidth / 4 - INSTRUCTIONS_OFFSET, cam.position.y + (cam.viewportWidth / 2));
+		instructions.setPosition(cam.viewportWidth / 4 - INSTRUCTIONS_OFFSET, cam.position.y + (cam.viewportWidth / 2));
+		instructions.draw(sb);
 		sb.end();
-		// Draw the contents of the stage (the button)
-		sb.begin();
+		// Draw the contents of the stage (the button). The stage begins and ends
+		// the batch itself with its own camera.
 		stage.draw();
-		sb.end();
 
 	}
 
@@ -104,13 +129,4 @@ public class MenuState extends State {
 	public void update(float dt) {
 	}
 
-	@Override
-	public void dispose() {
-		// Dispose excess objects
-		instructions.dispose();
-		stage.dispose();
-		skin.dispose();
-		bg.dispose();
-	}
-
 }
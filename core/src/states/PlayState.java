@@ -1,80 +1,118 @@
 package states;
 
-import java.util.Random;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Timer;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
 import com.mygdx.game.FirstGame;
 
-import sprites.Block;
+import assets.Assets;
+import audio.AudioService;
+import bot.AutoPlayer;
+import debug.FrameProfiler;
+import entities.EntityStore;
+import input.InputBuffer;
+import level.Chunk;
+import render.Backdrop;
+import render.ClippedLayer;
+import render.ParticleSystem;
+import stats.RunRecord;
+import sprites.BlockStore;
 import sprites.Circle;
+import ui.NumberText;
+import world.GameWorld;
+import world.PlayerInput;
+import world.Replay;
+import world.ReplayRecorder;
+import world.WorldListener;
 
 /**
  * Game state that shows a screen for when the user is actually playing the
- * game. Most of the action happens in this class as well as some collision
- * detection and the inevitable transfer to a game over state. The movement of
- * the screen is simulated with an orthographic camera and the constant
- * rendering of the background at the camera's location.
+ * game. The rules of the game live in a GameWorld; this state takes the key
+ * presses an InputBuffer has timed, advances the world once per tick with the
+ * ones that happened during that tick, plays sounds when the world says
+ * something happened, and draws the world. The movement of the screen is
+ * simulated with an orthographic camera and the constant rendering of the
+ * background at the camera's location. The space backdrop is drawn opaque and
+ * scrolls its texture, and the sun and dashes only draw the part of them that
+ * is on screen, so little of the screen is blended more than once. Every
+ * sprite comes from the same texture atlas, so the whole screen is drawn in
+ * three draw calls: one for the backdrop, one for the sprites and one for the
+ * score text. The jump dust, death sparks and flames are particles drawn from
+ * the same atlas, so they go out with the sprites.
+ *
+ * Every run is recorded, and when the circle dies the recording is saved to
+ * replays/last.replay so a death can be reproduced exactly. A PlayState can
+ * also be given a Replay, in which case it plays the recorded input instead of
+ * reading the keyboard, or an AutoPlayer, in which case the bot plays and a
+ * new game starts whenever it dies.
  * 
  * @author Malyq McElroy
  *
  */
-public class PlayState extends State {
+public class PlayState extends State implements WorldListener {
 	// Offset for redrawing the sun
 	private static final int SUN_OFFSET = 225;
 	// Offset for redrawing the dashes
 	private static final int DASHES_OFFSETY = 135;
 	// Position of the score text
 	private static final int SCORE_POS = 150;
-	// Bounds for the right side of the screen
-	private static final int RIGHT_BOUNDS = 240;
-	// Left and Right offset for collision detection
-	private static final int LR_OFFSETY = 5;
 	// Offset in the y direction for various elements
 	private static final int OFFSETY = 80;
-	// Offset in the x direction for the rectangle at the top of the screen
-	private static final int DASH_RECT_OFFSETX = 135;
-	// Max amount of blocks on the screen at one time
-	private static final int MAX_BLOCKS = 7;
-	// Spacing between blocks
-	private static final int BLOCK_SPACING = 55;
-	// Starting position for the circle
-	private static final int CIRCLE_POS = 205;
-	// Speed at which the camera gradually increases
-	private double scaleSpeed = .5;
-	// Textures for the background, sun, and dashes
-	private Texture bg, sun, dashes;
-	// The circle the user controls
-	private Circle circle;
-	// Holds all of the blocks for reference
-	private Array<Block> blocks;
-	// Text that displays the user's current score
-	BitmapFont scoreText = new BitmapFont();
-	// Rectangle for collision detection with the top of the screen
-	private Rectangle dashRect;
-	// Displays the numerical value of the score
-	public float score = 0;
-	// Basically a boolean value to stop the speed of the camera from scaling out of
-	// control
-	private int speedStopper = 0;
-	// Sound that plays when the user gets a game over
-	private Sound gameOver;
-	// Ambient background music
-	private Music bgMusic;
-	// Gets the hundredths place of the score
-	private float seconds = 0;
+	// Most draw calls a frame should need: the backdrop, the atlas and the
+	// font's texture
+	private static final int MAX_RENDER_CALLS = 3;
+	// Volume of the ambient background music
+	private static final float MUSIC_VOLUME = .05f;
+	// Most particles alive at once, shared by every effect
+	private static final int MAX_PARTICLES = 512;
+	// The effects, in the order they are given to the particle system
+	private static final int DUST = 0, SPARKS = 1, FLAME = 2;
+	// How many ticks apart each fire gives off a flame
+	private static final int FLAME_INTERVAL = 6;
+	// How long a jump pressed in the air is remembered for, in milliseconds
+	private static final int JUMP_BUFFER_MILLIS = 100;
+	// Where the recording of the last run is saved
+	public static final String LAST_REPLAY = "replays/last.replay";
+	// Loads the atlas and audio and then builds a new game
+	public static final StateFactory FACTORY = factory(null, null);
+	// The space behind everything
+	private Backdrop backdrop;
+	// The on-screen parts of the sun and the dashes
+	private ClippedLayer sun, dashes;
+	// Regions for the blocks and circle
+	private TextureRegion block, circleTexture;
+	// Region for each kind of entity, see Chunk
+	private final TextureRegion[] kindRegions = new TextureRegion[Chunk.HAZARD_FIRE + 1];
+	// Jump dust, death sparks and the flames above fires
+	private final ParticleSystem particles;
+	// The game itself
+	private GameWorld world;
+	// Text that displays the user's current score. It reuses its text between
+	// frames so drawing it allocates nothing.
+	private NumberText scoreLabel;
+	// Plays the jump and game over sounds and the background music
+	private final AudioService audio;
+	// The recording being played back, or null when the player is playing
+	private final Replay replay;
+	// The bot playing instead of the player, or null
+	private final AutoPlayer bot;
+	// The player's key presses, or null when a replay or the bot is playing
+	private final InputBuffer keys;
+	// Records the input of every tick of this run
+	private final ReplayRecorder recorder;
+	// Times the phases of each frame
+	private final FrameProfiler profiler;
 
 	/**
 	 * PlayState Constructor
@@ -83,197 +121,356 @@ public class PlayState extends State {
 	 *            Allows the transfer of control to a GameOverState
 	 */
 	public PlayState(GameStateManager gsm) {
+		this(gsm, null, null);
+	}
+
+	/**
+	 * PlayState Constructor
+	 * 
+	 * @param gsm
+	 *            Allows the transfer of control to a GameOverState
+	 * @param replay
+	 *            the recording to play back, or null to let the player play
+	 * @param bot
+	 *            the bot to play instead of the player, or null
+	 */
+	public PlayState(GameStateManager gsm, Replay replay, AutoPlayer bot) {
 		// Calls the super's constructor
 		super(gsm);
+		// A recording only plays back the same way at the tick rate it was made at
+		if (replay != null && replay.getTickRate() != FirstGame.TICK_RATE) {
+			throw new GdxRuntimeException(
+					"Replay was recorded at " + replay.getTickRate() + " ticks a second, not " + FirstGame.TICK_RATE);
+		}
+		this.replay = replay;
+		this.bot = bot;
+		keys = replay == null && bot == null ? new InputBuffer(JUMP_BUFFER_MILLIS) : null;
 		// Initialize the background
-		bg = new Texture("spaceBigger.png");
-		// Initialize the sun
-		sun = new Texture("newSun.png");
-		// Initialize the dashes at the top of the screen
-		dashes = new Texture("dashes.png");
+		backdrop = new Backdrop(acquire(Assets.BACKDROP, Texture.class));
+		// Initialize the sun and the dashes at the top of the screen. They cover
+		// the whole view but start part of the way up it.
+		sun = new ClippedLayer(findRegion(Assets.SUN), FirstGame.HEIGHT / 4 - FirstGame.WIDTH / 4 + SUN_OFFSET,
+				FirstGame.HEIGHT / 2, FirstGame.HEIGHT / 2);
+		dashes = new ClippedLayer(findRegion(Assets.DASHES), DASHES_OFFSETY, FirstGame.HEIGHT / 2,
+				FirstGame.HEIGHT / 2);
+		// Initialize the regions drawn over the blocks and the circle
+		block = findRegion(Assets.BLOCK);
+		circleTexture = findRegion(Assets.CIRCLE);
+		kindRegions[Chunk.HAZARD_SPIKE] = findRegion(Assets.SPIKE);
+		kindRegions[Chunk.HAZARD_FIRE] = findRegion(Assets.FIRE);
+		particles = createParticles(findRegion(Assets.PARTICLE));
+		// Create the score text with the shared font; it scrolls with the camera so
+		// it shouldn't snap to whole pixels
+		scoreLabel = new NumberText(gsm.getUi().getFont(), "Score =  ", 2);
+		scoreLabel.setUseIntegerPositions(false);
 		// Initialize the camera position
 		cam.setToOrtho(false, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
-		// Create an array of blocks
-		blocks = new Array<Block>();
-		// Add the blocks to the array with positions that are equally spaced as
-		// determined by i
-		for (int i = 0; i <= MAX_BLOCKS; i++) {
-			blocks.add(new Block(i * (Block.BLOCK_HEIGHT + BLOCK_SPACING)));
-		}
-		// Create the circle
-		circle = new Circle(CIRCLE_POS, CIRCLE_POS);
-		// Create the rectangle at the top of the screen for testing if a game over has
-		// occurred
-		dashRect = new Rectangle(0, cam.position.y - (cam.viewportHeight / 2) + DASH_RECT_OFFSETX + dashes.getHeight(),
-				FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
-		// Initialize the background music
-		bgMusic = Gdx.audio.newMusic(Gdx.files.internal("bgMusic.ogg"));
-		// Initialize the game over sound
-		gameOver = Gdx.audio.newSound(Gdx.files.internal("gameOver.ogg"));
-		// Have the background music loop when it ends
-		bgMusic.setLooping(true);
-		// Set the volume
-		bgMusic.setVolume(.05f);
-		// Begin playing the background music
-		bgMusic.play();
+		// Create the world and listen for jumps and the game ending. A replay
+		// creates the world from the seed it was recorded with.
+		world = replay != null ? replay.newWorld() : new GameWorld();
+		world.setListener(this);
+		profiler = gsm.getProfiler();
+		world.setProfiler(profiler);
+		recorder = new ReplayRecorder(world.getSeed(), FirstGame.TICK_RATE);
+		// Build the level ahead of the camera on a background thread so it never
+		// costs any frame time
+		world.getLevel().start();
+		// The sounds and music are loaded once for the whole game
+		audio = gsm.getAudio();
 	}
 
 	@Override
-	public void update(float dt) {
-		// Adjust the camera's position based on it's speed
-		cam.position.y -= scaleSpeed;
-		// Adjust the rectangle of the dashes based on the camera's position. If we
-		// don't update its' position, the collision detection will fail.
-		dashRect.y -= scaleSpeed;
-		// Whenever there is a 9 in the hundredths place increase the speed of the
-		// camera
-		if ((int) seconds == 9 && speedStopper == 0) {
-			// Because update is constantly called if we don't prevent the entrance of this
-			// if-conditional after the first speed increase, then it will continue to
-			// increase out of control.
-			speedStopper = 1;
-			scaleSpeed += .1;
+	public void enter() {
+		// Only the player's key presses are read while playing. Keys pressed
+		// before now were never seen, so start from what is held.
+		Gdx.input.setInputProcessor(keys);
+		if (keys != null) {
+			keys.reset();
 		}
-		// Now that we've stopped the scaling, we can reset the stopper so we can scale
-		// again next time we get a 9 in the hundredths
-		if ((int) seconds == 1) {
-			speedStopper = 0;
+		// Begin playing the background music, carrying on from where the last run
+		// left it
+		audio.playMusic(Assets.BACKGROUND_MUSIC, MUSIC_VOLUME);
+	}
+
+	@Override
+	public void exit() {
+		// Pause rather than stop the music so Retry doesn't reopen the stream
+		audio.pauseMusic();
+		if (Gdx.input.getInputProcessor() == keys) {
+			Gdx.input.setInputProcessor(null);
 		}
-		// Loop through all the blocks
-		for (Block block : blocks) {
-			// Check to see if a block has gone past the dashes and by our definition
-			// "off-screen"
-			if (cam.position.y + (cam.viewportHeight / 2) < block.getPosLeftBlock().y
-					+ block.getBoundsLeft().getHeight()) {
-				// If a block has gone off-screen, then instead of creating a new block at the
-				// bottom of the screen, we can just reposition the old one.
-				block.reposition(
-						block.getPosLeftBlock().y - ((block.getBlock().getHeight() + BLOCK_SPACING) * MAX_BLOCKS - 2));
-			}
-			// Check to see if a block has gone past the dashes
-			if (circle.getCircleRect().y + circle.getCircleRect().height > dashRect.y + OFFSETY) {
-				// Stop playing the background music
-				bgMusic.stop();
-				// Play the game over sound
-				gameOver.play();
-				// Enter a new GameOverState
-				gsm.set(new GameOverState(gsm), score);
-			}
+		profiler.setCounter(FrameProfiler.INPUT_LATENCY, 0);
+	}
+
+	@Override
+	public void pause() {
+		audio.pauseMusic();
+	}
+
+	@Override
+	public void resume() {
+		audio.resumeMusic();
+		// Keys let go while we were paused never sent a key up
+		if (keys != null) {
+			keys.reset();
 		}
-		// Update the camera
-		cam.update();
 	}
 
 	@Override
-	public void render(SpriteBatch sb) {
-		// Establish the frame of reference for the camera
-		sb.setProjectionMatrix(cam.combined);
-		sb.begin();
-		// Draw the background to the screen
-		sb.draw(bg, 0, cam.position.y - (cam.viewportWidth / 2) - OFFSETY, FirstGame.WIDTH / 2, FirstGame.HEIGHT / 2);
-		// Draw the sun to the screen
-		sb.draw(sun, 0, cam.position.y - (cam.viewportWidth / 2) + SUN_OFFSET, FirstGame.WIDTH / 2,
-				FirstGame.HEIGHT / 2);
-		// Draw the dashes to the screen
-		sb.draw(dashes, 0, cam.position.y - (cam.viewportHeight / 2) + DASHES_OFFSETY, FirstGame.WIDTH / 2,
-				FirstGame.HEIGHT / 2);
-		// Draw the score to the screen
-		scoreText.draw(sb, "Score =  " + score, SCORE_POS, cam.position.y + (cam.viewportWidth / 2) + OFFSETY);
-		// Update the value of the score
-		score += Gdx.graphics.getDeltaTime();
-		scoreText.setUseIntegerPositions(false);
-		// Store the hundredths place into a variable
-		seconds = score % 10;
-		// Draw the blocks to the screen
-		for (Block block : blocks) {
-			sb.draw(block.getBlock(), block.getPosLeftBlock().x, block.getPosLeftBlock().y);
-			sb.draw(block.getBlock(), block.getPosRightBlock().x, block.getPosRightBlock().y);
+	public void dispose() {
+		// Stop building chunks for a world nobody is playing anymore
+		world.getLevel().stop();
+		super.dispose();
+	}
+
+	@Override
+	public void update(float dt) {
+		// Collect the buttons held during this tick
+		int input = PlayerInput.NONE;
+		if (replay != null) {
+			// Play back whatever was held on this tick of the recording
+			input = replay.getInput(world.getTicks());
+		} else if (bot != null) {
+			// Let the bot decide
+			input = bot.nextInput(world);
+		} else {
+			// Take every key press up to the end of this tick
+			input = keys.poll(gsm.getTickTime());
 		}
-		// Check if the circle goes off the right side of the screen
-		if (circle.getCircleRect().x > RIGHT_BOUNDS) {
-			circle.setPosition(-circle.getCircleRect().width, circle.getCircleRect().y);
-			// Check if the circle goes off the left side of the screen
-		} else if (circle.getCircleRect().x + circle.getCircleRect().width < 0) {
-			circle.setPosition(RIGHT_BOUNDS, circle.getCircleRect().y);
-			// Check if the circle goes off the bottom of the screen
-		} else if (circle.getCircleRect().y < cam.position.y - 200) {
-			circle.setPosition(circle.getCircleRect().x, cam.position.y - 200);
+		// Record the input and advance the game. The recording holds the buttons
+		// the world saw, so replays don't need the buffer.
+		recorder.record(input);
+		world.tick(dt, input);
+		// Let every fire give off a flame now and then while the game goes on
+		if (!world.isGameOver() && world.getTicks() % FLAME_INTERVAL == 0) {
+			EntityStore entities = world.getEntities();
+			for (int i = 0, n = entities.count(); i < n; i++) {
+				if (entities.getKind(i) == Chunk.HAZARD_FIRE) {
+					particles.emit(FLAME, entities.getX(i) + entities.getWidth(i) / 2,
+							entities.getY(i) + entities.getHeight(i));
+				}
+			}
 		}
-		// Draw the circle
-		circle.draw(sb);
-		sb.end();
+		particles.update(dt);
+	}
 
-		/////////// Collision Detection ///////////
+	/**
+	 * Sets up the effects
+	 *
+	 * @param dot
+	 *            the white dot every particle is drawn with
+	 * @return the particle system, with DUST, SPARKS and FLAME in that order
+	 */
+	private static ParticleSystem createParticles(TextureRegion dot) {
+		// Grey puffs that spread out sideways from under the circle
+		ParticleSystem.Emitter dust = new ParticleSystem.Emitter(dot);
+		dust.color.set(.8f, .8f, .8f, .8f);
+		dust.count = 8;
+		dust.spread = 70;
+		dust.minSpeed = 15;
+		dust.maxSpeed = 40;
+		dust.gravity = 60;
+		dust.minLife = .2f;
+		dust.maxLife = .4f;
+		dust.startSize = 3;
+		dust.endSize = 6;
+		// A burst of hot sparks in every direction where the circle died
+		ParticleSystem.Emitter sparks = new ParticleSystem.Emitter(dot);
+		sparks.color.set(1, .8f, .3f, 1);
+		sparks.count = 40;
+		sparks.minSpeed = 60;
+		sparks.maxSpeed = 160;
+		sparks.gravity = 150;
+		sparks.minLife = .4f;
+		sparks.maxLife = .8f;
+		sparks.startSize = 4;
+		sparks.endSize = 1;
+		// Small embers rising from the top of a fire
+		ParticleSystem.Emitter flame = new ParticleSystem.Emitter(dot);
+		flame.color.set(1, .5f, .1f, .9f);
+		flame.count = 2;
+		flame.spread = 15;
+		flame.minSpeed = 10;
+		flame.maxSpeed = 25;
+		flame.gravity = -20;
+		flame.minLife = .3f;
+		flame.maxLife = .6f;
+		flame.startSize = 5;
+		flame.endSize = 1;
+		return new ParticleSystem(MAX_PARTICLES, dust, sparks, flame);
+	}
 
-		// Update the position of the circle
-		circle.update(Gdx.graphics.getDeltaTime());
-		for (Block block : blocks) {
-			// Check if each left part of the block is overlapping with the circle
-			switch (circle.hits(block.getBoundsLeft())) {
-			// If the bottom side of the circle overlaps enter this case
-			case 1:
-				// Prevent the circle from falling
-				circle.action(1, 0, block.getBoundsLeft().y + block.getBoundsLeft().height - LR_OFFSETY);
-				break;
-			// If the left side of the circle overlaps enter this case
-			case 2:
-				// Prevent the circle from moving left
-				circle.action(2, block.getBoundsLeft().x + block.getBoundsLeft().width, 0);
-				break;
-			// If the top side of the circle overlaps enter this case
-			case 4:
-				// Prevent the circle from going up through other blocks
-				circle.action(4, 0, block.getBoundsLeft().y - circle.getCircleRect().height);
-				break;
+	/**
+	 * Makes a factory that loads everything a game needs and then builds it
+	 *
+	 * @param replay
+	 *            the recording to play back, or null to let the player play
+	 * @param bot
+	 *            the bot to play instead of the player, or null
+	 * @return the factory
+	 */
+	public static StateFactory factory(final Replay replay, final AutoPlayer bot) {
+		return new StateFactory() {
+			@Override
+			public void queueAssets(Assets assets) {
+				assets.queue(Assets.ATLAS, TextureAtlas.class);
+				assets.queue(Assets.BACKDROP, Texture.class, Assets.BACKDROP_PARAMETERS);
+				assets.queue(Assets.JUMP_SOUND, Sound.class);
+				assets.queue(Assets.GAME_OVER_SOUND, Sound.class);
+				assets.queue(Assets.BACKGROUND_MUSIC, Music.class);
 			}
-			// Check if each right part of the block is overlapping with the circle
-			switch (circle.hits(block.getBoundsRight())) {
-			// If the bottom side of the circle overlaps enter this case
-			case 1:
-				// Prevent the circle from falling 
-				circle.action(1, 0, block.getBoundsRight().y + block.getBoundsRight().height - LR_OFFSETY);
-				break;
-		    // If the right side of the circle overlaps enter this case
-			case 3:
-				// Prevent the block from moving right
-				circle.action(3, block.getBoundsRight().x - 10, 0);
-				break;
-		   // If the top side of the circle overlaps enter this case
-			case 4:
-				// Prevent the circle from going up through other blocks
-				circle.action(4, 0, block.getBoundsRight().y - circle.getCircleRect().height);
-				break;
+
+			@Override
+			public State create(GameStateManager gsm) {
+				return new PlayState(gsm, replay, bot);
+			}
+		};
+	}
+
+	@Override
+	public void jumped() {
+		// The press that caused the jump is used up
+		if (keys != null) {
+			keys.jumped();
+		}
+		// Kick up dust from under the circle
+		Rectangle circleRect = world.getCircle().getCircleRect();
+		particles.emit(DUST, circleRect.x + circleRect.width / 2, circleRect.y);
+		// Play the jumping sound at max volume
+		profiler.start(FrameProfiler.AUDIO);
+		audio.play(Assets.JUMP_SOUND, 1f, AudioService.PRIORITY_NORMAL);
+		profiler.stop(FrameProfiler.AUDIO);
+	}
+
+	@Override
+	public void gameOver(float score) {
+		// Throw sparks from where the circle died
+		Rectangle circleRect = world.getCircle().getCircleRect();
+		particles.emit(SPARKS, circleRect.x + circleRect.width / 2, circleRect.y + circleRect.height / 2);
+		// Play the game over sound
+		profiler.start(FrameProfiler.AUDIO);
+		audio.play(Assets.GAME_OVER_SOUND, 1f, AudioService.PRIORITY_HIGH);
+		profiler.stop(FrameProfiler.AUDIO);
+		// Keep the recording of the run, unless we were watching one
+		if (replay == null) {
+			saveReplay();
+		}
+		// Remember the run if the player played it, and send it to the
+		// leaderboard. Both only hand the run over; it is saved and sent in the
+		// background.
+		if (replay == null && bot == null) {
+			logLatency();
+			RunRecord run = new RunRecord(System.currentTimeMillis(), world.getSeed(), score,
+					(float) world.getScaleSpeed(), world.getJumps(), world.getTicks());
+			gsm.getHistory().record(run);
+			if (gsm.getLeaderboard() != null) {
+				gsm.getLeaderboard().submit(run);
 			}
 		}
-		// Check if the left arrow was pushed
-		if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
-			// Move the circle left
-			circle.moveLeft(Gdx.graphics.getDeltaTime());
+		// Enter a new GameOverState; the music is stopped when we exit. A bot
+		// just starts another game.
+		if (bot != null) {
+			gsm.load(factory(null, bot), 0);
+		} else {
+			gsm.load(GameOverState.FACTORY, score);
 		}
-       // Check if the right arrow was pushed
-		if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
-			// Move the circle right
-			circle.moveRight(Gdx.graphics.getDeltaTime());
+	}
+
+	/**
+	 * Logs how long the player's key presses took to reach the simulation
+	 */
+	private void logLatency() {
+		if (keys.getPresses() == 0) {
+			return;
 		}
-		// Check if the space bar was pushed
-		if (Gdx.input.isKeyPressed(Input.Keys.SPACE)) {
-			// Make the circle jump
-			circle.jump();
+		Gdx.app.log("PlayState", "Input latency over the last " + Math.min(keys.getPresses(), InputBuffer.LATENCY_WINDOW)
+				+ " presses: p50 " + keys.getLatencyPercentile(.5f) / 1000 + " us, p95 "
+				+ keys.getLatencyPercentile(.95f) / 1000 + " us, p99 " + keys.getLatencyPercentile(.99f) / 1000
+				+ " us");
+	}
+
+	/**
+	 * Saves the recording of this run to LAST_REPLAY. Failing to save is logged
+	 * rather than interrupting the game.
+	 */
+	private void saveReplay() {
+		FileHandle file = Gdx.files.local(LAST_REPLAY);
+		OutputStream out = null;
+		try {
+			out = file.write(false);
+			recorder.toReplay().write(out);
+		} catch (IOException e) {
+			Gdx.app.error("PlayState", "Couldn't save " + LAST_REPLAY, e);
+		} catch (GdxRuntimeException e) {
+			Gdx.app.error("PlayState", "Couldn't save " + LAST_REPLAY, e);
+		} finally {
+			StreamUtils.closeQuietly(out);
 		}
 	}
 
 	@Override
-	public void dispose() {
-		// Dispose of excess objects to avoid memory leaks
-		circle.dispose();
-		bgMusic.dispose();
-		gameOver.dispose();
-		bg.dispose();
-		sun.dispose();
-		dashes.dispose();
-		scoreText.dispose();
-		for (Block block : blocks) {
-			block.dispose();
+	public void render(SpriteBatch sb, float alpha) {
+		// Thin out the effects if frames are taking too long
+		particles.adapt(Gdx.graphics.getRawDeltaTime());
+		// Show the slowest key press of the frame in the profiler
+		if (keys != null) {
+			profiler.setCounter(FrameProfiler.INPUT_LATENCY, (int) (keys.takeWorstLatency() / 1000));
+		}
+		// Place the camera between the last two ticks so motion stays smooth at any
+		// frame rate
+		cam.position.y = world.getDrawCamY(alpha);
+		cam.update();
+		// Establish the frame of reference for the camera
+		sb.setProjectionMatrix(cam.combined);
+		profiler.start(FrameProfiler.SPRITES);
+		sb.begin();
+		// Draw the background to the screen, scrolled by how far the camera has
+		// fallen
+		backdrop.draw(sb, cam, GameWorld.VIEW_HEIGHT / 2 - cam.position.y);
+		// Draw the sun and the dashes to the screen
+		sun.draw(sb, cam);
+		dashes.draw(sb, cam);
+		// Draw the blocks that are on screen, starting from the lowest visible one
+		BlockStore blocks = world.getBlocks();
+		float screenTop = cam.position.y + cam.viewportHeight / 2;
+		float screenBottom = cam.position.y - cam.viewportHeight / 2;
+		for (int i = blocks.firstAbove(screenBottom); i < blocks.size(); i++) {
+			// Every block from here on is above the screen
+			if (blocks.getY(i) > screenTop) {
+				break;
+			}
+			sb.draw(block, blocks.getLeftX(i), blocks.getY(i));
+			sb.draw(block, blocks.getRightX(i), blocks.getY(i));
+		}
+		// Draw the hazards that are on screen over the blocks
+		EntityStore entities = world.getEntities();
+		for (int i = 0, n = entities.count(); i < n; i++) {
+			float y = entities.getY(i);
+			if (y > screenTop || y + entities.getHeight(i) < screenBottom) {
+				continue;
+			}
+			sb.draw(kindRegions[entities.getKind(i)], entities.getX(i), y, entities.getWidth(i),
+					entities.getHeight(i));
+		}
+		// Draw the circle between where it was and where it is now
+		Circle circle = world.getCircle();
+		sb.draw(circleTexture, circle.getDrawX(alpha), circle.getDrawY(alpha));
+		// Draw the effects over everything but the score
+		particles.draw(sb);
+		// Send the sprites now so their cost isn't counted as text
+		sb.flush();
+		profiler.stop(FrameProfiler.SPRITES);
+		profiler.start(FrameProfiler.TEXT);
+		// Draw the score to the screen last. The font has its own texture, so
+		// drawing it between the sprites would flush the batch an extra time.
+		scoreLabel.setValue(world.getScore());
+		scoreLabel.draw(sb, SCORE_POS, cam.position.y + (cam.viewportWidth / 2) + OFFSETY);
+		sb.end();
+		profiler.stop(FrameProfiler.TEXT);
+		// While the frame is being measured, let us know if something started
+		// switching textures in the middle of it
+		if (profiler.isEnabled() && sb.renderCalls > MAX_RENDER_CALLS) {
+			Gdx.app.error("PlayState", sb.renderCalls + " draw calls this frame, expected " + MAX_RENDER_CALLS);
 		}
 	}
 
@@ -0,0 +1,161 @@
+package states;
+
+import java.util.Stack;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Debug helper used by the GameStateManager to find states that were never
+ * disposed. Every state reports itself here when it is created and again when
+ * it is disposed. After each transition the tracker looks for states that are
+ * no longer on the stack but are still alive, and logs how many of each kind
+ * of resource they are holding on to, followed by a summary of what every
+ * live state is holding on to.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ResourceTracker {
+	// Tag used when logging
+	private static final String TAG = "ResourceTracker";
+	// Whether states are being tracked at all
+	private boolean enabled = false;
+	// States that have been created but not disposed yet
+	private final Array<State> live;
+	// How many leaked states have been reported since tracking started
+	private int leaks = 0;
+
+	/**
+	 * ResourceTracker constructor
+	 */
+	public ResourceTracker() {
+		live = new Array<State>();
+	}
+
+	/**
+	 * Called by the State constructor
+	 *
+	 * @param state
+	 *            the state that was just created
+	 */
+	void stateCreated(State state) {
+		if (enabled) {
+			live.add(state);
+		}
+	}
+
+	/**
+	 * Called by State.dispose()
+	 *
+	 * @param state
+	 *            the state that was just disposed
+	 */
+	void stateDisposed(State state) {
+		live.removeValue(state, true);
+	}
+
+	/**
+	 * Reports every live state that is no longer on the stack. Each leaked state
+	 * is only reported once.
+	 *
+	 * @param stack
+	 *            the states currently managed by the GameStateManager
+	 */
+	void check(Stack<State> stack) {
+		if (!enabled) {
+			return;
+		}
+		for (int i = live.size - 1; i >= 0; i--) {
+			State state = live.get(i);
+			// Anything on the stack is still in use
+			if (stack.contains(state)) {
+				continue;
+			}
+			leaks++;
+			Gdx.app.error(TAG, "Leaked " + state.getClass().getSimpleName() + " still holds "
+					+ describe(state.getLiveResources()));
+			// Stop tracking the state so it isn't reported again
+			live.removeIndex(i);
+		}
+		Gdx.app.log(TAG, "Live states after the transition:\n" + report());
+	}
+
+	/**
+	 * Builds a summary of how many resources are alive for every state type
+	 *
+	 * @return one line per state type, e.g. "PlayState: gameplay.atlas=8"
+	 */
+	public String report() {
+		// Add up the resources of every live state of the same type
+		ObjectMap<String, ObjectIntMap<String>> byType = new ObjectMap<String, ObjectIntMap<String>>();
+		for (State state : live) {
+			String type = state.getClass().getSimpleName();
+			ObjectIntMap<String> counts = byType.get(type);
+			if (counts == null) {
+				counts = new ObjectIntMap<String>();
+				byType.put(type, counts);
+			}
+			for (ObjectIntMap.Entry<String> entry : state.getLiveResources()) {
+				counts.getAndIncrement(entry.key, 0, entry.value);
+			}
+		}
+		StringBuilder builder = new StringBuilder();
+		for (ObjectMap.Entry<String, ObjectIntMap<String>> entry : byType) {
+			builder.append(entry.key).append(": ").append(describe(entry.value)).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @param counts
+	 *            resource counts keyed by kind
+	 * @return the non-zero counts as "kind=count" pairs
+	 */
+	private static String describe(ObjectIntMap<String> counts) {
+		StringBuilder builder = new StringBuilder();
+		for (ObjectIntMap.Entry<String> entry : counts) {
+			if (entry.value > 0) {
+				if (builder.length() > 0) {
+					builder.append(", ");
+				}
+				builder.append(entry.key).append('=').append(entry.value);
+			}
+		}
+		return builder.length() == 0 ? "nothing" : builder.toString();
+	}
+
+	/**
+	 * Turns tracking on or off. States created while tracking is off are never
+	 * reported.
+	 *
+	 * @param enabled
+	 *            true to track states
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			live.clear();
+		}
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return true if states are being tracked
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 *
+	 * @return how many leaked states have been reported
+	 */
+	public int getLeaks() {
+		return leaks;
+	}
+}
@@ -4,30 +4,158 @@ package states;
  */
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import assets.AssetHandle;
+import assets.Assets;
 
 public abstract class State {
 	//Controls what the user sees
 	protected OrthographicCamera cam;
 	//Each sate has a GSM to transition between states
 	protected GameStateManager gsm;
-	
-	
+	//Asset handles and disposables owned by this state, freed in dispose()
+	private final Array<AssetHandle<?>> handles;
+	private final Array<Disposable> owned;
+	//How many of each kind of resource this state currently holds
+	private final ObjectIntMap<String> liveResources;
+	//The atlas holding the gameplay sprites, acquired the first time a region is needed
+	private TextureAtlas atlas;
+
+
 	/**
-	 *  Constructor 
+	 *  Constructor
 	 * @param gs The GSM used for switching states
 	 */
 	public State(GameStateManager gs){
 		//Initialize the GSM and Camera
 		gsm = gs;
 		cam = new OrthographicCamera();
+		handles = new Array<AssetHandle<?>>();
+		owned = new Array<Disposable>();
+		liveResources = new ObjectIntMap<String>();
+		//Let the leak tracker know this state exists
+		gsm.getTracker().stateCreated(this);
 
 	}
 		/**
-		 * Methods to be implemented by subclasses 
+		 * Methods to be implemented by subclasses. update() is called once per
+		 * fixed simulation tick with the length of the tick; render() is called
+		 * once per frame with how far we are between the last tick and the next
 		 */
 		public abstract void update(float dt);
-		public abstract void render(SpriteBatch sb); 
-		public abstract void dispose();
+		public abstract void render(SpriteBatch sb, float alpha);
+
+		/**
+		 * Called by the GSM when this state becomes the one on top of the stack
+		 */
+		public void enter() {
+		}
+
+		/**
+		 * Called by the GSM when this state stops being the one on top of the stack
+		 */
+		public void exit() {
+		}
+
+		/**
+		 * Called when the application is paused while this state is on top
+		 */
+		public void pause() {
+		}
+
+		/**
+		 * Called when the application is resumed while this state is on top
+		 */
+		public void resume() {
+		}
+
+		/**
+		 * Frees everything the state acquired or owns. Subclasses that override
+		 * this must call super.dispose().
+		 */
+		public void dispose() {
+			//Free resources in the reverse order they were created
+			for (int i = owned.size - 1; i >= 0; i--) {
+				Disposable resource = owned.get(i);
+				resource.dispose();
+				liveResources.getAndIncrement(kindOf(resource), 0, -1);
+			}
+			owned.clear();
+			for (int i = handles.size - 1; i >= 0; i--) {
+				AssetHandle<?> handle = handles.get(i);
+				if (!handle.isReleased()) {
+					handle.release();
+					liveResources.getAndIncrement(handle.getFileName(), 0, -1);
+				}
+			}
+			handles.clear();
+			atlas = null;
+			gsm.getTracker().stateDisposed(this);
+		}
+
+		/**
+		 * Opens a handle to a shared asset that is released when the state is
+		 * disposed
+		 * @param fileName the internal path of the asset
+		 * @param type the class of the asset
+		 * @return the loaded asset
+		 */
+		protected <T> T acquire(String fileName, Class<T> type) {
+			AssetHandle<T> handle = gsm.getAssets().acquire(fileName, type);
+			handles.add(handle);
+			liveResources.getAndIncrement(fileName, 0, 1);
+			return handle.get();
+		}
+
+		/**
+		 * Looks up a sprite in the gameplay atlas. Every region shares the same
+		 * texture, so drawing them one after another never flushes the batch.
+		 * @param name the region name, e.g. Assets.BLOCK
+		 * @return the region
+		 */
+		protected TextureRegion findRegion(String name) {
+			if (atlas == null) {
+				atlas = acquire(Assets.ATLAS, TextureAtlas.class);
+			}
+			TextureRegion region = atlas.findRegion(name);
+			if (region == null) {
+				throw new GdxRuntimeException("No region named " + name + " in " + Assets.ATLAS);
+			}
+			return region;
+		}
+
+		/**
+		 * Hands a disposable object to the state so it is disposed along with it
+		 * @param resource the object to dispose later
+		 * @return the same object, for convenience
+		 */
+		protected <T extends Disposable> T own(T resource) {
+			owned.add(resource);
+			liveResources.getAndIncrement(kindOf(resource), 0, 1);
+			return resource;
+		}
+
+		/**
+		 *
+		 * @return how many of each kind of resource the state still holds
+		 */
+		public ObjectIntMap<String> getLiveResources() {
+			return liveResources;
+		}
+
+		/**
+		 * @param resource a disposable object
+		 * @return the name used to count the object in the leak report
+		 */
+		private static String kindOf(Disposable resource) {
+			return resource.getClass().getSimpleName();
+		}
 	}
 
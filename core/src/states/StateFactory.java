@@ -0,0 +1,32 @@
+package states;
+
+import assets.Assets;
+
+/**
+ * Builds a state once the files it needs are loaded. The GameStateManager
+ * queues the files, keeps drawing the current state while they load a little
+ * each frame, and only then calls create(), so the new state's constructor
+ * never waits on the disk.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public interface StateFactory {
+	/**
+	 * Queues every file the state acquires, e.g. with assets.queue(Assets.ATLAS,
+	 * TextureAtlas.class)
+	 *
+	 * @param assets
+	 *            where the files are loaded
+	 */
+	void queueAssets(Assets assets);
+
+	/**
+	 * Builds the state. Called once every queued file is loaded.
+	 *
+	 * @param gsm
+	 *            the GameStateManager the state belongs to
+	 * @return the new state
+	 */
+	State create(GameStateManager gsm);
+}
@@ -0,0 +1,293 @@
+package stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Remembers the player's best scores and latest runs between sessions. The
+ * runs are kept in memory, so the game over screen can show the personal best
+ * without touching the disk, and saved in a RunJournal by a background thread,
+ * so ending a run never waits for a write.
+ *
+ * The journal is read once when the history is created. It is kept small by
+ * compaction, so that is only a few kilobytes. Everything written after that,
+ * including repairing a torn write and compacting, happens on the writer
+ * thread in the order the runs ended. If the journal can't be read the history
+ * still works for the rest of the session but saves nothing.
+ *
+ * Only the game's thread may call the methods of a RunHistory.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class RunHistory implements Disposable {
+	// How many of the best runs and of the latest runs are kept
+	public static final int TOP_RUNS = 10;
+	public static final int RECENT_RUNS = 50;
+	// The journal is compacted once it holds this many records
+	private static final int COMPACT_AT = 2 * (TOP_RUNS + RECENT_RUNS);
+	// Longest dispose() waits for the last writes to finish, in milliseconds
+	private static final int FLUSH_MILLIS = 1000;
+	// Orders runs from oldest to newest
+	private static final Comparator<RunRecord> BY_TIME = new Comparator<RunRecord>() {
+		@Override
+		public int compare(RunRecord a, RunRecord b) {
+			return a.time < b.time ? -1 : a.time > b.time ? 1 : 0;
+		}
+	};
+
+	// The file the runs are saved in, or null if it couldn't be read
+	private final RunJournal journal;
+	// Writes to the journal one task at a time
+	private final ExecutorService writer;
+	// The latest runs, oldest first
+	private final Array<RunRecord> recent = new Array<RunRecord>();
+	// The best runs, best first
+	private final Array<RunRecord> top = new Array<RunRecord>();
+	// Totals over every run ever played, including ones no longer kept
+	private long runs = 0;
+	private double seconds = 0;
+	private long jumps = 0;
+	// How many records the journal will hold once every queued write is done
+	private int journalRecords = 0;
+
+	/**
+	 * Reads the saved runs and starts the writer thread
+	 *
+	 * @param file
+	 *            the journal file; created with the first run if it doesn't
+	 *            exist
+	 */
+	public RunHistory(File file) {
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "run-history");
+				// Never keep the game from exiting; dispose() waits for the writes
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// Fill in the index from the saved runs
+		final RunJournal loaded = new RunJournal(file);
+		List<RunRecord> saved = new ArrayList<RunRecord>();
+		RunJournal.Totals dropped = new RunJournal.Totals();
+		boolean ok = true;
+		try {
+			loaded.load(saved, dropped);
+		} catch (IOException e) {
+			Gdx.app.error("RunHistory", "Couldn't read " + file + ", runs won't be saved", e);
+			ok = false;
+		}
+		journal = ok ? loaded : null;
+		if (journal == null) {
+			return;
+		}
+		runs = dropped.runs;
+		seconds = dropped.seconds;
+		jumps = dropped.jumps;
+		for (RunRecord run : saved) {
+			add(run);
+		}
+		journalRecords = journal.getRecords();
+		// Cut off a write that was torn by a crash before anything is appended
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (journal.repair()) {
+						Gdx.app.log("RunHistory", "Dropped a damaged run at the end of the journal");
+					}
+				} catch (IOException e) {
+					Gdx.app.error("RunHistory", "Couldn't repair the journal", e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds a finished run. The index is updated right away and the run is saved
+	 * in the background.
+	 *
+	 * @param run
+	 *            the run
+	 */
+	public void record(final RunRecord run) {
+		add(run);
+		if (journal == null) {
+			return;
+		}
+		if (journalRecords + 1 < COMPACT_AT) {
+			journalRecords++;
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						journal.append(run);
+					} catch (IOException e) {
+						Gdx.app.error("RunHistory", "Couldn't save a run", e);
+					}
+				}
+			});
+			return;
+		}
+		// Rewrite the journal with what the index keeps instead of appending. The
+		// index already holds every queued run, so nothing is lost or written twice.
+		final List<RunRecord> keep = kept();
+		final RunJournal.Totals dropped = new RunJournal.Totals();
+		dropped.runs = runs;
+		dropped.seconds = seconds;
+		dropped.jumps = jumps;
+		for (RunRecord kept : keep) {
+			dropped.runs--;
+			dropped.seconds -= kept.score;
+			dropped.jumps -= kept.jumps;
+		}
+		journalRecords = keep.size() + (dropped.runs > 0 ? 1 : 0);
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					journal.compact(keep, dropped);
+				} catch (IOException e) {
+					Gdx.app.error("RunHistory", "Couldn't compact the journal", e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds a run to the index
+	 *
+	 * @param run
+	 *            the run
+	 */
+	private void add(RunRecord run) {
+		runs++;
+		seconds += run.score;
+		jumps += run.jumps;
+		recent.add(run);
+		if (recent.size > RECENT_RUNS) {
+			recent.removeIndex(0);
+		}
+		// Insert the run after every run that is at least as good
+		int i = 0;
+		while (i < top.size && top.get(i).score >= run.score) {
+			i++;
+		}
+		if (i < TOP_RUNS) {
+			top.insert(i, run);
+			if (top.size > TOP_RUNS) {
+				top.pop();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return every run the index keeps, oldest first
+	 */
+	private List<RunRecord> kept() {
+		List<RunRecord> keep = new ArrayList<RunRecord>(recent.size + top.size);
+		for (RunRecord run : recent) {
+			keep.add(run);
+		}
+		for (RunRecord run : top) {
+			if (!recent.contains(run, true)) {
+				keep.add(run);
+			}
+		}
+		Collections.sort(keep, BY_TIME);
+		return keep;
+	}
+
+	/**
+	 * Waits a moment for the queued writes to finish, then stops the writer
+	 * thread
+	 */
+	@Override
+	public void dispose() {
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (journal != null) {
+						journal.close();
+					}
+				} catch (IOException e) {
+					Gdx.app.error("RunHistory", "Couldn't close the journal", e);
+				}
+			}
+		});
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(FLUSH_MILLIS, TimeUnit.MILLISECONDS)) {
+				Gdx.app.error("RunHistory", "Gave up waiting for the journal to be written");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the best score ever, or 0 if no run has ended yet
+	 */
+	public float getBest() {
+		return top.size == 0 ? 0 : top.first().score;
+	}
+
+	/**
+	 *
+	 * @return the best runs, best first; must not be changed
+	 */
+	public Array<RunRecord> getTopRuns() {
+		return top;
+	}
+
+	/**
+	 *
+	 * @return the latest runs, oldest first; must not be changed
+	 */
+	public Array<RunRecord> getRecentRuns() {
+		return recent;
+	}
+
+	/**
+	 *
+	 * @return how many runs have ever ended
+	 */
+	public long getRuns() {
+		return runs;
+	}
+
+	/**
+	 *
+	 * @return how many seconds every run together has lasted
+	 */
+	public double getTotalSeconds() {
+		return seconds;
+	}
+
+	/**
+	 *
+	 * @return how many times the circle has jumped over every run
+	 */
+	public long getTotalJumps() {
+		return jumps;
+	}
+}
@@ -0,0 +1,342 @@
+package stats;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * The file the RunHistory keeps its runs in. Runs are only ever appended, one
+ * fixed-size record at a time, and every record ends with a checksum, so a
+ * crash in the middle of a write can at worst leave a torn record at the end
+ * of the file. load() stops at the first record that doesn't check out and
+ * repair() cuts it off.
+ *
+ * Appending forever would make the file grow without end, so every now and
+ * then compact() rewrites it with only the runs worth keeping plus one record
+ * with the totals of the runs that were dropped. The new file is written next
+ * to the old one and renamed over it, so a crash leaves either the old file
+ * or the new one, never half of each.
+ *
+ * The file is a small header followed by the records:
+ *
+ * <pre>
+ * int   MAGIC
+ * byte  VERSION
+ * records of RECORD_SIZE bytes:
+ *   byte  KIND_RUN or KIND_TOTALS
+ *   32 bytes of payload:
+ *     run:    long time, long seed, float score, float final speed, int jumps, int ticks
+ *     totals: long runs, double seconds, long jumps, 8 unused bytes
+ *   int   CRC32 of the kind and payload
+ * </pre>
+ *
+ * A journal is not thread safe; the RunHistory only uses it from its writer
+ * thread once it has been loaded.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class RunJournal {
+	// Marks the start of a journal file ("FURH")
+	public static final int MAGIC = 0x46555248;
+	// Changed whenever the file layout changes
+	public static final byte VERSION = 1;
+	// Size of the header and of every record, in bytes
+	public static final int HEADER_SIZE = 5;
+	public static final int RECORD_SIZE = 1 + 32 + 4;
+	// What a record holds
+	private static final byte KIND_RUN = 1;
+	private static final byte KIND_TOTALS = 2;
+
+	/**
+	 * The totals of every run that was dropped when the journal was compacted
+	 */
+	public static class Totals {
+		// How many runs there were
+		public long runs;
+		// How many seconds they lasted together
+		public double seconds;
+		// How many jumps they had together
+		public long jumps;
+	}
+
+	// The journal and the file compact() writes before renaming it
+	private final File file, temp;
+	// Builds each record before it is written
+	private final byte[] record = new byte[RECORD_SIZE];
+	private final ByteBuffer buffer = ByteBuffer.wrap(record);
+	private final CRC32 crc = new CRC32();
+	// Appends to the journal; opened the first time a run is appended
+	private FileOutputStream out;
+	// How many intact records the file holds
+	private int records = 0;
+	// Where the intact records end; anything after it is a torn write
+	private long validLength = 0;
+
+	/**
+	 * RunJournal constructor. Nothing is read until load() is called.
+	 *
+	 * @param file
+	 *            the journal file; it and its folder are created when needed
+	 */
+	public RunJournal(File file) {
+		this.file = file;
+		temp = new File(file.getPath() + ".tmp");
+	}
+
+	/**
+	 * Reads every intact record. Also finishes a compaction that was cut off
+	 * between deleting the old file and renaming the new one.
+	 *
+	 * @param runs
+	 *            gets every run in the file, oldest first
+	 * @param totals
+	 *            gets the totals of the runs dropped by compaction
+	 * @throws IOException
+	 *             if the file can't be read or isn't a journal
+	 */
+	public void load(List<RunRecord> runs, Totals totals) throws IOException {
+		// A finished compaction that wasn't renamed yet, or one that didn't finish
+		if (!file.exists() && temp.exists()) {
+			rename();
+		} else if (temp.exists()) {
+			temp.delete();
+		}
+		records = 0;
+		validLength = 0;
+		if (!file.exists()) {
+			return;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a run journal: " + file);
+			}
+			byte version = in.readByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported run journal version " + version);
+			}
+			validLength = HEADER_SIZE;
+			while (true) {
+				in.readFully(record);
+				// Stop at the first record that doesn't match its checksum
+				crc.reset();
+				crc.update(record, 0, RECORD_SIZE - 4);
+				buffer.clear();
+				if (buffer.getInt(RECORD_SIZE - 4) != (int) crc.getValue()) {
+					break;
+				}
+				byte kind = buffer.get();
+				if (kind == KIND_RUN) {
+					runs.add(new RunRecord(buffer.getLong(), buffer.getLong(), buffer.getFloat(), buffer.getFloat(),
+							buffer.getInt(), buffer.getInt()));
+				} else if (kind == KIND_TOTALS) {
+					totals.runs += buffer.getLong();
+					totals.seconds += buffer.getDouble();
+					totals.jumps += buffer.getLong();
+				} else {
+					break;
+				}
+				records++;
+				validLength += RECORD_SIZE;
+			}
+		} catch (EOFException e) {
+			// The end of the file, possibly in the middle of a torn record
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Cuts off anything after the last intact record found by load(), so new
+	 * records aren't appended after a torn one
+	 *
+	 * @return true if anything was cut off
+	 * @throws IOException
+	 *             if the file can't be written to
+	 */
+	public boolean repair() throws IOException {
+		if (!file.exists() || file.length() <= validLength) {
+			return false;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// A header that was never finished is written again with the first run
+			raf.setLength(validLength < HEADER_SIZE ? 0 : validLength);
+			raf.getFD().sync();
+		} finally {
+			raf.close();
+		}
+		return true;
+	}
+
+	/**
+	 * Appends a run and waits until it is on disk
+	 *
+	 * @param run
+	 *            the run
+	 * @throws IOException
+	 *             if the file can't be written to
+	 */
+	public void append(RunRecord run) throws IOException {
+		if (out == null) {
+			out = open(file, true);
+		}
+		encode(run);
+		out.write(record);
+		out.getFD().sync();
+		records++;
+		validLength += RECORD_SIZE;
+	}
+
+	/**
+	 * Replaces the journal with a new one holding only some of the runs
+	 *
+	 * @param runs
+	 *            the runs to keep, oldest first
+	 * @param totals
+	 *            the totals of every run that isn't kept
+	 * @throws IOException
+	 *             if the new file can't be written or renamed
+	 */
+	public void compact(List<RunRecord> runs, Totals totals) throws IOException {
+		close();
+		FileOutputStream tempOut = open(temp, false);
+		int written = 0;
+		try {
+			if (totals.runs > 0) {
+				encode(totals);
+				tempOut.write(record);
+				written++;
+			}
+			for (RunRecord run : runs) {
+				encode(run);
+				tempOut.write(record);
+				written++;
+			}
+			tempOut.getFD().sync();
+		} finally {
+			tempOut.close();
+		}
+		rename();
+		records = written;
+		validLength = HEADER_SIZE + (long) written * RECORD_SIZE;
+	}
+
+	/**
+	 * Closes the file. The next append opens it again.
+	 *
+	 * @throws IOException
+	 *             if the file can't be closed
+	 */
+	public void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+
+	/**
+	 * Opens a file for writing, writing the header first if it is new
+	 *
+	 * @param target
+	 *            the file
+	 * @param append
+	 *            true to add to the end of it, false to start it over
+	 * @return the stream
+	 * @throws IOException
+	 *             if the file can't be opened
+	 */
+	private FileOutputStream open(File target, boolean append) throws IOException {
+		File folder = target.getAbsoluteFile().getParentFile();
+		if (folder != null && !folder.exists() && !folder.mkdirs()) {
+			throw new IOException("Couldn't create " + folder);
+		}
+		boolean fresh = !append || !target.exists() || target.length() == 0;
+		FileOutputStream stream = new FileOutputStream(target, append);
+		if (fresh) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.put(VERSION);
+			stream.write(header.array());
+		}
+		return stream;
+	}
+
+	/**
+	 * Renames the compacted file over the journal. Some platforms can't rename
+	 * over an existing file, so the old one is deleted first if needed; load()
+	 * finishes the job if we crash in between.
+	 *
+	 * @throws IOException
+	 *             if the file can't be renamed
+	 */
+	private void rename() throws IOException {
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+			throw new IOException("Couldn't replace " + file);
+		}
+	}
+
+	/**
+	 * Fills in the record buffer for a run
+	 *
+	 * @param run
+	 *            the run
+	 */
+	private void encode(RunRecord run) {
+		buffer.clear();
+		buffer.put(KIND_RUN);
+		buffer.putLong(run.time);
+		buffer.putLong(run.seed);
+		buffer.putFloat(run.score);
+		buffer.putFloat(run.finalSpeed);
+		buffer.putInt(run.jumps);
+		buffer.putInt(run.ticks);
+		finish();
+	}
+
+	/**
+	 * Fills in the record buffer for the totals of dropped runs
+	 *
+	 * @param totals
+	 *            the totals
+	 */
+	private void encode(Totals totals) {
+		buffer.clear();
+		buffer.put(KIND_TOTALS);
+		buffer.putLong(totals.runs);
+		buffer.putDouble(totals.seconds);
+		buffer.putLong(totals.jumps);
+		buffer.putLong(0);
+		finish();
+	}
+
+	/**
+	 * Adds the checksum to the end of the record buffer
+	 */
+	private void finish() {
+		crc.reset();
+		crc.update(record, 0, RECORD_SIZE - 4);
+		buffer.putInt((int) crc.getValue());
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many records the file holds
+	 */
+	public int getRecords() {
+		return records;
+	}
+}
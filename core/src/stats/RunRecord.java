@@ -0,0 +1,50 @@
+package stats;
+
+/**
+ * What is remembered about one finished run. Records never change once they
+ * are made, so the same one can be read on the game's thread while the
+ * journal writes it on its own.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class RunRecord {
+	// When the run ended, in milliseconds since 1970
+	public final long time;
+	// The seed of the run's level
+	public final long seed;
+	// The score, which is the number of seconds survived
+	public final float score;
+	// How fast the camera was scrolling when the run ended, in pixels per frame
+	// at 60 fps
+	public final float finalSpeed;
+	// How many times the circle jumped
+	public final int jumps;
+	// How many ticks the run lasted
+	public final int ticks;
+
+	/**
+	 * RunRecord constructor
+	 *
+	 * @param time
+	 *            when the run ended, in milliseconds since 1970
+	 * @param seed
+	 *            the seed of the run's level
+	 * @param score
+	 *            the number of seconds survived
+	 * @param finalSpeed
+	 *            how fast the camera was scrolling at the end
+	 * @param jumps
+	 *            how many times the circle jumped
+	 * @param ticks
+	 *            how many ticks the run lasted
+	 */
+	public RunRecord(long time, long seed, float score, float finalSpeed, int jumps, int ticks) {
+		this.time = time;
+		this.seed = seed;
+		this.score = score;
+		this.finalSpeed = finalSpeed;
+		this.jumps = jumps;
+		this.ticks = ticks;
+	}
+}
@@ -0,0 +1,148 @@
+package ui;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+
+/**
+ * A line of text made of a fixed label followed by a number, e.g. "Score =  12.34".
+ * Building that text with string concatenation or String.format creates new
+ * strings every frame, and on Android the garbage causes hitches when it is
+ * collected. NumberText writes the digits into a StringBuilder it reuses and
+ * only lays the text out again when the digits on screen actually change, so
+ * drawing it allocates nothing.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class NumberText {
+	// Powers of ten used to shift the decimals into a whole number
+	private static final long[] POWERS = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+	// Holds the laid out glyphs of the text
+	private final BitmapFontCache cache;
+	// The text that comes before the number
+	private final String label;
+	// How many digits are shown after the decimal point
+	private final int decimals;
+	// Reused to build the text
+	private final StringBuilder text;
+	// The number currently shown, with the decimals shifted into a whole number
+	private long shown;
+	// False until the first number has been set
+	private boolean hasValue = false;
+
+	/**
+	 * NumberText constructor
+	 *
+	 * @param font
+	 *            the font to draw with
+	 * @param label
+	 *            the text that comes before the number
+	 * @param decimals
+	 *            how many digits to show after the decimal point, from 0 to 6
+	 */
+	public NumberText(BitmapFont font, String label, int decimals) {
+		if (decimals < 0 || decimals >= POWERS.length) {
+			throw new IllegalArgumentException("decimals must be between 0 and " + (POWERS.length - 1) + ": " + decimals);
+		}
+		this.label = label;
+		this.decimals = decimals;
+		// Enough room for the label, a sign, every digit of a long and a point
+		text = new StringBuilder(label.length() + 21);
+		text.append(label);
+		cache = font.newFontCache();
+	}
+
+	/**
+	 * Sets the number to show, rounded to the number of decimals
+	 *
+	 * @param value
+	 *            the number to show
+	 */
+	public void setValue(float value) {
+		// Shift the decimals into a whole number and round half away from zero,
+		// the same as String.format does
+		double shifted = (double) value * POWERS[decimals];
+		setShifted(shifted < 0 ? -(long) (-shifted + .5) : (long) (shifted + .5));
+	}
+
+	/**
+	 * Sets a whole number to show
+	 *
+	 * @param value
+	 *            the number to show
+	 */
+	public void setValue(int value) {
+		setShifted(value * POWERS[decimals]);
+	}
+
+	/**
+	 * Lets the text move by fractions of a pixel, e.g. when it scrolls with the
+	 * camera
+	 *
+	 * @param use
+	 *            false to allow fractional positions
+	 */
+	public void setUseIntegerPositions(boolean use) {
+		cache.setUseIntegerPositions(use);
+	}
+
+	/**
+	 * Draws the text at a position
+	 *
+	 * @param batch
+	 *            the batch to draw with; begin() must already have been called
+	 * @param x
+	 *            the x position of the left of the text
+	 * @param y
+	 *            the y position of the top of the text, like BitmapFont.draw()
+	 */
+	public void draw(Batch batch, float x, float y) {
+		// Moving the cache only shifts the vertices it already has
+		cache.setPosition(x, y);
+		cache.draw(batch);
+	}
+
+	/**
+	 * Rebuilds the text if the number on screen has changed
+	 *
+	 * @param value
+	 *            the number to show with the decimals shifted into a whole number
+	 */
+	private void setShifted(long value) {
+		// Nothing to do if the same digits are already on screen
+		if (hasValue && value == shown) {
+			return;
+		}
+		shown = value;
+		hasValue = true;
+		// Keep the label and write the digits after it
+		text.setLength(label.length());
+		if (value < 0) {
+			text.append('-');
+			value = -value;
+		}
+		text.append(value / POWERS[decimals]);
+		if (decimals > 0) {
+			text.append('.');
+			// Pad the decimals with zeros, e.g. 5 hundredths is written as 05
+			long fraction = value % POWERS[decimals];
+			for (int i = decimals - 1; i > 0 && fraction < POWERS[i]; i--) {
+				text.append('0');
+			}
+			text.append(fraction);
+		}
+		// Lay out the glyphs again at the origin; draw() moves them into place
+		cache.setText(text, 0, 0);
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the text currently shown
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+}
@@ -0,0 +1,170 @@
+package ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+
+/**
+ * Everything the menus need to draw buttons and text, created once when the
+ * game starts and shared by every state. Parsing uiskin.json, building a
+ * Stage (which makes its own SpriteBatch mesh) and creating BitmapFonts are
+ * all slow, so doing them on every transition made opening the menu and game
+ * over screens hitch. The stage draws with the game's own SpriteBatch.
+ *
+ * A state adds its actors to the stage when it is entered and calls clear()
+ * when it is exited, so only the state on top receives clicks.
+ *
+ * It also draws the fade and the progress message shown while the
+ * GameStateManager loads the next state.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class UiRuntime implements Disposable {
+	// File the skin for buttons is read from
+	private static final String SKIN = "uiskin.json";
+	// Defines what every GUI element looks like
+	private final Skin skin;
+	// Holds the buttons of whichever state is on top
+	private final Stage stage;
+	// The font every state draws its text with
+	private final BitmapFont font;
+	// A white pixel from the skin, stretched over the screen to fade it
+	private final TextureRegion white;
+	// Shown while the next state is still loading
+	private final NumberText progress;
+
+	/**
+	 * UiRuntime constructor
+	 *
+	 * @param batch
+	 *            the game's batch, which the stage draws with
+	 */
+	public UiRuntime(SpriteBatch batch) {
+		skin = new Skin(Gdx.files.internal(SKIN));
+		// Same viewport a new Stage() would make, but sharing the game's batch
+		stage = new Stage(new ScalingViewport(Scaling.stretch, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(),
+				new OrthographicCamera()), batch);
+		font = new BitmapFont();
+		white = skin.getRegion("white");
+		progress = new NumberText(font, "Loading ", 0);
+	}
+
+	/**
+	 * Makes a block of text that never changes, e.g. a title. The glyphs are laid
+	 * out once here instead of every time it is drawn.
+	 *
+	 * @param text
+	 *            the text to show
+	 * @param color
+	 *            the color of the text
+	 * @return a cache that can be drawn with setPosition() and draw()
+	 */
+	public BitmapFontCache newText(CharSequence text, Color color) {
+		BitmapFontCache cache = font.newFontCache();
+		cache.setColor(color);
+		cache.setText(text, 0, 0);
+		return cache;
+	}
+
+	/**
+	 * Darkens the whole screen
+	 *
+	 * @param batch
+	 *            the game's batch, which must not be drawing yet
+	 * @param amount
+	 *            how dark, from 0 (not at all) to 1 (black)
+	 */
+	public void drawFade(SpriteBatch batch, float amount) {
+		batch.setProjectionMatrix(stage.getCamera().combined);
+		batch.begin();
+		batch.setColor(0, 0, 0, amount);
+		batch.draw(white, 0, 0, stage.getWidth(), stage.getHeight());
+		batch.setColor(Color.WHITE);
+		batch.end();
+	}
+
+	/**
+	 * Shows how much of the next state has loaded in the middle of the screen
+	 *
+	 * @param batch
+	 *            the game's batch, which must not be drawing yet
+	 * @param loaded
+	 *            how much has loaded, from 0 to 1
+	 */
+	public void drawProgress(SpriteBatch batch, float loaded) {
+		progress.setValue((int) (loaded * 100));
+		batch.setProjectionMatrix(stage.getCamera().combined);
+		batch.begin();
+		progress.draw(batch, stage.getWidth() / 2 - 40, stage.getHeight() / 2);
+		batch.end();
+	}
+
+	/**
+	 * Removes every actor from the stage and stops it from receiving input
+	 */
+	public void clear() {
+		stage.clear();
+		if (Gdx.input.getInputProcessor() == stage) {
+			Gdx.input.setInputProcessor(null);
+		}
+	}
+
+	/**
+	 * Keeps the stage the same size as the window
+	 *
+	 * @param width
+	 *            the new width of the window
+	 * @param height
+	 *            the new height of the window
+	 */
+	public void resize(int width, int height) {
+		stage.getViewport().update(width, height, true);
+	}
+
+	/**
+	 * Clean up any disposable objects. The batch belongs to the game and isn't
+	 * disposed here.
+	 */
+	@Override
+	public void dispose() {
+		stage.dispose();
+		skin.dispose();
+		font.dispose();
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the skin for buttons and other GUI elements
+	 */
+	public Skin getSkin() {
+		return skin;
+	}
+
+	/**
+	 *
+	 * @return the stage shared by every state
+	 */
+	public Stage getStage() {
+		return stage;
+	}
+
+	/**
+	 *
+	 * @return the font shared by every state; don't change its color or scale
+	 */
+	public BitmapFont getFont() {
+		return font;
+	}
+}
@@ -0,0 +1,659 @@
+package world;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import debug.FrameProfiler;
+import entities.EntityStore;
+import entities.RideSystem;
+import entities.TouchSystem;
+import level.Chunk;
+import level.GapPositionPattern;
+import level.GapWidthCurve;
+import level.HazardPattern;
+import level.LevelGenerator;
+import level.MovingBarPattern;
+import sprites.BlockStore;
+import sprites.Circle;
+
+/**
+ * The GameWorld holds all of the game's rules: the falling circle, the blocks,
+ * the scrolling camera, the score and the speed-ups. It is plain Java and never
+ * touches textures, audio or Gdx.input, so it can be simulated without a
+ * window (for example in a unit test or a headless tool) as fast as the CPU
+ * allows. PlayState feeds it the player's input once per tick and draws
+ * whatever it contains.
+ *
+ * The layout of the rows comes from a LevelGenerator seeded when the world is
+ * created, so the same seed and the same input always play out the same way.
+ * That is what lets a Replay repeat a run exactly.
+ *
+ * A world can be copied into another one with set(), which is how the
+ * AutoPlayer tries out moves without touching the world being played.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class GameWorld {
+	// Speeds in the game were tuned in pixels per frame at this frame rate
+	public static final int REFERENCE_FPS = 60;
+	// Size of the area the camera shows
+	public static final int VIEW_WIDTH = 240;
+	public static final int VIEW_HEIGHT = 400;
+	// Bounds for the right side of the screen
+	private static final int RIGHT_BOUNDS = VIEW_WIDTH;
+	// How far the circle sinks into the top of a block when it lands on it
+	private static final int LR_OFFSETY = 5;
+	// How far above a row's y position hazards stand; the same height the circle
+	// rests at
+	public static final int HAZARD_SURFACE = BlockStore.HEIGHT - LR_OFFSETY;
+	// Max amount of blocks on the screen at one time
+	private static final int MAX_BLOCKS = 7;
+	// Most hazards that can be alive at once
+	private static final int MAX_ENTITIES = 256;
+	// Starting position for the circle
+	private static final int CIRCLE_POS = 205;
+	// Height of the dashes texture and where it is drawn from the bottom of the
+	// screen
+	private static final int DASHES_HEIGHT = 168;
+	private static final int DASHES_OFFSETY = 135;
+	// How far past the dashes the circle can go before the game is over
+	private static final int OFFSETY = 80;
+	// Distance from the middle of the screen to the line that ends the game
+	private static final int DEATH_LINE = DASHES_OFFSETY + DASHES_HEIGHT + OFFSETY - VIEW_HEIGHT / 2;
+	// How far below the middle of the screen the circle is allowed to fall
+	private static final int FLOOR = 200;
+	// How many times the circle's movement can be stopped and slid in one tick
+	private static final int MAX_SWEEPS = 3;
+	// The seed the level was generated from
+	private final long seed;
+	// Spacing between blocks
+	private int blockSpacing;
+	// How much the speed of the camera goes up each time
+	private double speedGain;
+	// Builds the layout of the rows, one chunk at a time
+	private final LevelGenerator level;
+	// The chunk the next row comes from, and which of its rows was used last
+	private Chunk chunk;
+	private int chunkRow;
+	// Speed at which the camera gradually increases
+	private double scaleSpeed;
+	// The circle the user controls
+	private Circle circle;
+	// Holds all of the blocks, sorted by height
+	private BlockStore blocks;
+	// Holds the hazards standing on the blocks
+	private EntityStore entities;
+	// Decides what touching each kind of entity does
+	private final TouchSystem.Listener toucher = new TouchSystem.Listener() {
+		@Override
+		public boolean touched(EntityStore entities, int i) {
+			switch (entities.getKind(i)) {
+			case Chunk.HAZARD_SPIKE:
+			case Chunk.HAZARD_FIRE:
+				// Touching a spike or a fire ends the game
+				hitHazard = true;
+				return false;
+			default:
+				return false;
+			}
+		}
+	};
+	// Set when the circle touched a hazard this tick
+	private boolean hitHazard;
+	// Reused for the collision rectangles of the row being tested
+	private final Rectangle boundsLeft = new Rectangle(), boundsRight = new Rectangle();
+	// Reused for the results of the collision tests and the block that was hit
+	// first
+	private final Sweep.Hit hit = new Sweep.Hit(), first = new Sweep.Hit();
+	private final Rectangle contact = new Rectangle();
+	// Displays the numerical value of the score
+	private float score = 0;
+	// Basically a boolean value to stop the speed of the camera from scaling out of
+	// control
+	private int speedStopper = 0;
+	// Gets the hundredths place of the score
+	private float seconds = 0;
+	// Vertical position of the middle of the camera, and where it was at the
+	// start of the current tick
+	private float camY, prevCamY;
+	// True once the circle has gone past the dashes
+	private boolean gameOver = false;
+	// How many ticks have been simulated
+	private int ticks = 0;
+	// How many times the circle has jumped
+	private int jumps = 0;
+	// Told about jumps and the game ending; may be null
+	private WorldListener listener;
+	// Times the phases of each tick; may be null
+	private FrameProfiler profiler;
+
+	/**
+	 * GameWorld constructor for a new, unpredictable run
+	 */
+	public GameWorld() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * GameWorld constructor
+	 *
+	 * @param seed
+	 *            the seed for every random choice in the run
+	 */
+	public GameWorld(long seed) {
+		this(seed, new WorldConfig());
+	}
+
+	/**
+	 * GameWorld constructor for tuning the difficulty
+	 *
+	 * @param seed
+	 *            the seed for every random choice in the run
+	 * @param config
+	 *            the physics and speeds to play with; copied, so changing it
+	 *            later has no effect
+	 */
+	public GameWorld(long seed, WorldConfig config) {
+		this.seed = seed;
+		blockSpacing = config.blockSpacing;
+		speedGain = config.speedGain;
+		scaleSpeed = config.startSpeed;
+		// The camera starts with the bottom of the screen at y = 0
+		camY = prevCamY = VIEW_HEIGHT / 2;
+		level = newLevel(seed);
+		// Create the stores for the blocks and the hazards on them
+		blocks = new BlockStore(MAX_BLOCKS + 1);
+		entities = new EntityStore(MAX_ENTITIES);
+		// Add the blocks from lowest to highest with positions that are equally
+		// spaced as determined by i
+		for (int i = 0; i <= MAX_BLOCKS; i++) {
+			nextRow();
+			spawnHazard(blocks.add(i * (BlockStore.BLOCK_HEIGHT + blockSpacing), chunk, chunkRow));
+		}
+		// Put the hazards on their rows
+		RideSystem.update(entities, blocks);
+		// Create the circle
+		circle = new Circle(CIRCLE_POS, CIRCLE_POS, config);
+	}
+
+	/**
+	 * Creates the generator for the game's level. The gaps start wide and narrow
+	 * as the level goes on, rows start sliding from the third chunk, and spikes
+	 * and fires show up from the fourth.
+	 *
+	 * @param seed
+	 *            the seed of the level
+	 * @return the generator
+	 */
+	public static LevelGenerator newLevel(long seed) {
+		return new LevelGenerator(seed,
+				new GapPositionPattern(BlockStore.SLIDE_RANGE),
+				new GapWidthCurve(36, 24, 1, 3),
+				new MovingBarPattern(2, .1f, .5f, 20, 45),
+				new HazardPattern(3, .15f, BlockStore.WIDTH));
+	}
+
+	/**
+	 * Makes this world an exact copy of another one so it can be simulated ahead
+	 * without changing the original. Nothing that changes is shared: the circle
+	 * and blocks are copied along with the config the other world was made
+	 * with, and any chunks needed after the current one are built by this
+	 * world's own generator. The current chunk is shared, but a
+	 * chunk never changes once it is built. The listener and profiler aren't
+	 * copied.
+	 *
+	 * @param other
+	 *            the world to copy, which must have the same seed
+	 */
+	public void set(GameWorld other) {
+		if (other.seed != seed) {
+			throw new IllegalArgumentException("Can't copy a world with seed " + other.seed + " into one with seed " + seed);
+		}
+		level.seek(other.level.getNextIndex());
+		chunk = other.chunk;
+		chunkRow = other.chunkRow;
+		blockSpacing = other.blockSpacing;
+		speedGain = other.speedGain;
+		scaleSpeed = other.scaleSpeed;
+		circle.set(other.circle);
+		blocks.set(other.blocks);
+		entities.set(other.entities);
+		score = other.score;
+		speedStopper = other.speedStopper;
+		seconds = other.seconds;
+		camY = other.camY;
+		prevCamY = other.prevCamY;
+		gameOver = other.gameOver;
+		ticks = other.ticks;
+		jumps = other.jumps;
+	}
+
+	/**
+	 * Advances the game by one fixed tick
+	 *
+	 * @param dt
+	 *            the length of the tick in seconds
+	 * @param input
+	 *            the buttons held during the tick, see PlayerInput
+	 */
+	public void tick(float dt, int input) {
+		// Nothing moves once the game is over
+		if (gameOver) {
+			return;
+		}
+		ticks++;
+		// Remember where things were at the start of the tick so rendering can
+		// interpolate between this tick and the next one
+		prevCamY = camY;
+		circle.storePrevious();
+		start(FrameProfiler.CAMERA);
+		// Adjust the camera's position based on it's speed. The speed is measured in
+		// pixels per frame at 60 fps, so scale it by the length of the tick.
+		camY -= (float) scaleSpeed * REFERENCE_FPS * dt;
+		// Update the value of the score
+		score += dt;
+		// Store the hundredths place into a variable
+		seconds = score % 10;
+		// Whenever there is a 9 in the hundredths place increase the speed of the
+		// camera
+		if ((int) seconds == 9 && speedStopper == 0) {
+			// Because tick is constantly called if we don't prevent the entrance of this
+			// if-conditional after the first speed increase, then it will continue to
+			// increase out of control.
+			speedStopper = 1;
+			scaleSpeed += speedGain;
+		}
+		// Now that we've stopped the scaling, we can reset the stopper so we can scale
+		// again next time we get a 9 in the hundredths
+		if ((int) seconds == 1) {
+			speedStopper = 0;
+		}
+		stop(FrameProfiler.CAMERA);
+		start(FrameProfiler.LEVEL);
+		// Slide the moving rows
+		blocks.update(dt);
+		// Only the highest block can go off the top of the screen, so keep checking
+		// it until it is back on screen. The count stops us from looping forever if
+		// the camera ever jumps further than all of the blocks.
+		for (int i = 0; i < blocks.size(); i++) {
+			float topY = blocks.getTopY();
+			// Check to see if a block has gone past the dashes and by our definition
+			// "off-screen"
+			if (camY + (VIEW_HEIGHT / 2) >= topY + BlockStore.HEIGHT) {
+				break;
+			}
+			// If a block has gone off-screen, then instead of creating a new block at the
+			// bottom of the screen, we can just reposition the old one. Its hazards go
+			// with it and the new row's hazard takes their place.
+			nextRow();
+			int slot = blocks.recycleTop(topY - ((BlockStore.HEIGHT + blockSpacing) * MAX_BLOCKS - 2), chunk,
+					chunkRow);
+			entities.removeRow(slot);
+			spawnHazard(slot);
+		}
+		// Keep the hazards on their sliding rows
+		RideSystem.update(entities, blocks);
+		stop(FrameProfiler.LEVEL);
+		// Check to see if the circle has gone past the dashes
+		if (circle.getCircleRect().y + circle.getCircleRect().height > camY + DEATH_LINE) {
+			gameOver = true;
+			if (listener != null) {
+				listener.gameOver(score);
+			}
+			return;
+		}
+		// Check if the circle goes off the right side of the screen
+		if (circle.getCircleRect().x > RIGHT_BOUNDS) {
+			circle.setPosition(-circle.getCircleRect().width, circle.getCircleRect().y);
+			// Wrapping is a jump, not a movement, so don't interpolate across the screen
+			circle.storePrevious();
+			// Check if the circle goes off the left side of the screen
+		} else if (circle.getCircleRect().x + circle.getCircleRect().width < 0) {
+			circle.setPosition(RIGHT_BOUNDS, circle.getCircleRect().y);
+			circle.storePrevious();
+			// Check if the circle goes off the bottom of the screen
+		} else if (circle.getCircleRect().y < camY - FLOOR) {
+			circle.setPosition(circle.getCircleRect().x, camY - FLOOR);
+		}
+
+		/////////// Collision Detection ///////////
+
+		start(FrameProfiler.COLLISION);
+		// Wrapping around the screen or being pushed up by the floor can leave the
+		// circle inside a block, so push it back out first
+		separate();
+		// Work out how far the circle falls this tick
+		circle.update(dt);
+		// Check if left is held
+		if ((input & PlayerInput.LEFT) != 0) {
+			// Move the circle left
+			circle.moveLeft(dt);
+		}
+		// Check if right is held
+		if ((input & PlayerInput.RIGHT) != 0) {
+			// Move the circle right
+			circle.moveRight(dt);
+		}
+		// Move the circle as far as it can go without passing through a block
+		sweep();
+		// See what the circle touches
+		hitHazard = false;
+		TouchSystem.touch(entities, circle.getCircleRect(), toucher);
+		stop(FrameProfiler.COLLISION);
+		if (hitHazard) {
+			gameOver = true;
+			if (listener != null) {
+				listener.gameOver(score);
+			}
+			return;
+		}
+		// Check if jump is held. This comes after the sweep so landing this tick
+		// doesn't cancel the jump.
+		if ((input & PlayerInput.JUMP) != 0) {
+			// Make the circle jump and let the listener play a sound
+			if (circle.jump()) {
+				jumps++;
+				if (listener != null) {
+					listener.jumped();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts timing a phase if a profiler is attached
+	 *
+	 * @param phase
+	 *            the phase, see FrameProfiler
+	 */
+	private void start(int phase) {
+		if (profiler != null) {
+			profiler.start(phase);
+		}
+	}
+
+	/**
+	 * Stops timing a phase if a profiler is attached
+	 *
+	 * @param phase
+	 *            the phase, see FrameProfiler
+	 */
+	private void stop(int phase) {
+		if (profiler != null) {
+			profiler.stop(phase);
+		}
+	}
+
+	/**
+	 * Moves on to the next row of the level, taking a new chunk from the
+	 * generator once every row of the current one has been used
+	 */
+	private void nextRow() {
+		if (chunk == null || ++chunkRow == Chunk.ROWS) {
+			chunk = level.next();
+			chunkRow = 0;
+		}
+	}
+
+	/**
+	 * Adds the hazard of the current row of the chunk, if it has one, to a row
+	 * of the BlockStore
+	 *
+	 * @param slot
+	 *            the slot of the row in the BlockStore
+	 */
+	private void spawnHazard(int slot) {
+		switch (chunk.hazard[chunkRow]) {
+		case Chunk.HAZARD_SPIKE:
+			entities.spawnOnRow(Chunk.HAZARD_SPIKE, slot, chunk.hazardX[chunkRow], HAZARD_SURFACE, Chunk.SPIKE_WIDTH,
+					Chunk.SPIKE_HEIGHT);
+			break;
+		case Chunk.HAZARD_FIRE:
+			entities.spawnOnRow(Chunk.HAZARD_FIRE, slot, chunk.hazardX[chunkRow], HAZARD_SURFACE, Chunk.FIRE_WIDTH,
+					Chunk.FIRE_HEIGHT);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Pushes the circle out of any block it overlaps at the start of the tick
+	 */
+	private void separate() {
+		Rectangle circleRect = circle.getCircleRect();
+		// Only rows that overlap the circle vertically can touch it
+		for (int i = blocks.firstAbove(circleRect.y); i < blocks.size(); i++) {
+			// Every row from here on starts above the circle
+			if (blocks.getY(i) >= circleRect.y + circleRect.height) {
+				break;
+			}
+			// Check both halves of the row
+			for (int half = 0; half < 2; half++) {
+				collisionBounds(i, half, boundsLeft);
+				if (Sweep.separate(circleRect, boundsLeft, hit)) {
+					// Push the circle out along the side it is closest to
+					circle.setPosition(circleRect.x + hit.normalX * hit.depth, circleRect.y + hit.normalY * hit.depth);
+					// Being pushed onto the top of a block counts as landing on it
+					if (hit.normalY > 0) {
+						circle.hit(0, 1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the circle by the movement it collected this tick. The movement is
+	 * swept against every block it could reach, the circle is moved up to the
+	 * first one it touches, and whatever movement is left slides along that
+	 * block. Because the whole path is tested, a fast circle can't skip over a
+	 * thin block between two ticks.
+	 */
+	private void sweep() {
+		Rectangle circleRect = circle.getCircleRect();
+		// Each pass either finishes the movement or removes one direction of it,
+		// so a few passes are always enough
+		for (int pass = 0; pass < MAX_SWEEPS; pass++) {
+			float dx = circle.getMoveX();
+			float dy = circle.getMoveY();
+			// Nothing left to move
+			if (dx == 0 && dy == 0) {
+				break;
+			}
+			// Only rows inside the vertical span of the whole movement can be hit
+			float low = circleRect.y + Math.min(dy, 0);
+			float high = circleRect.y + circleRect.height + Math.max(dy, 0);
+			boolean found = false;
+			for (int i = blocks.firstAbove(low); i < blocks.size(); i++) {
+				// Every row from here on starts above the movement
+				if (blocks.getY(i) >= high) {
+					break;
+				}
+				// Check both halves of the row and keep the earliest contact
+				for (int half = 0; half < 2; half++) {
+					collisionBounds(i, half, boundsRight);
+					if (Sweep.sweep(circleRect, dx, dy, boundsRight, hit) && (!found || hit.time < first.time)) {
+						first.set(hit);
+						contact.set(boundsRight);
+						found = true;
+					}
+				}
+			}
+			// Nothing in the way, so the circle moves the whole distance
+			if (!found) {
+				circle.advance(1);
+				break;
+			}
+			// Move up to the block and snap to its edge so rounding errors never
+			// leave the circle slightly inside it
+			circle.advance(first.time);
+			if (first.normalY > 0) {
+				circle.setPosition(circleRect.x, contact.y + contact.height);
+			} else if (first.normalY < 0) {
+				circle.setPosition(circleRect.x, contact.y - circleRect.height);
+			} else if (first.normalX > 0) {
+				circle.setPosition(contact.x + contact.width, circleRect.y);
+			} else {
+				circle.setPosition(contact.x - circleRect.width, circleRect.y);
+			}
+			// Stop the movement into the block; the rest slides along it
+			circle.hit(first.normalX, first.normalY);
+		}
+		// Anything still left after the last pass is dropped
+		circle.clearMove();
+	}
+
+	/**
+	 * Fills in the rectangle the circle collides with for half of a row. The top
+	 * is lowered a little so the circle looks like it is resting in the bar
+	 * rather than floating on its edge.
+	 *
+	 * @param i
+	 *            the index of the row, 0 being the lowest
+	 * @param half
+	 *            0 for the left half, 1 for the right half
+	 * @param out
+	 *            the rectangle to fill in
+	 */
+	private void collisionBounds(int i, int half, Rectangle out) {
+		if (half == 0) {
+			blocks.getBoundsLeft(i, out);
+		} else {
+			blocks.getBoundsRight(i, out);
+		}
+		out.height -= LR_OFFSETY;
+	}
+
+	/**
+	 *
+	 * @param alpha
+	 *            how far we are between the last tick and the next one, from 0
+	 *            to 1
+	 * @return the y position to draw the middle of the camera at
+	 */
+	public float getDrawCamY(float alpha) {
+		return prevCamY + (camY - prevCamY) * alpha;
+	}
+
+	/**
+	 * Sets who is told about jumps and the game ending
+	 *
+	 * @param listener
+	 *            the listener, or null for none
+	 */
+	public void setListener(WorldListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the profiler that times the camera, level and collision phases of
+	 * each tick
+	 *
+	 * @param profiler
+	 *            the profiler, or null for none
+	 */
+	public void setProfiler(FrameProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the generator building the level, e.g. to start it on a background
+	 *         thread
+	 */
+	public LevelGenerator getLevel() {
+		return level;
+	}
+
+	/**
+	 *
+	 * @return the seed the world was created with
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 *
+	 * @return the circle the user controls
+	 */
+	public Circle getCircle() {
+		return circle;
+	}
+
+	/**
+	 *
+	 * @return every block in the world
+	 */
+	public BlockStore getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 *
+	 * @return the hazards standing on the blocks
+	 */
+	public EntityStore getEntities() {
+		return entities;
+	}
+
+	/**
+	 *
+	 * @return the score, which is the number of seconds survived
+	 */
+	public float getScore() {
+		return score;
+	}
+
+	/**
+	 *
+	 * @return how fast the camera scrolls, in pixels per frame at 60 fps
+	 */
+	public double getScaleSpeed() {
+		return scaleSpeed;
+	}
+
+	/**
+	 *
+	 * @return the y position of the middle of the camera
+	 */
+	public float getCamY() {
+		return camY;
+	}
+
+	/**
+	 *
+	 * @return how far the top of the circle is below the line that ends the game
+	 */
+	public float getDeathMargin() {
+		Rectangle circleRect = circle.getCircleRect();
+		return camY + DEATH_LINE - (circleRect.y + circleRect.height);
+	}
+
+	/**
+	 *
+	 * @return true once the circle has gone past the dashes
+	 */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	/**
+	 *
+	 * @return how many ticks have been simulated
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 *
+	 * @return how many times the circle has jumped
+	 */
+	public int getJumps() {
+		return jumps;
+	}
+}
@@ -0,0 +1,25 @@
+package world;
+
+/**
+ * The buttons the player can hold during a tick. Input for a tick is a single
+ * int with one bit per button, e.g. LEFT | JUMP.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public final class PlayerInput {
+	// No buttons held
+	public static final int NONE = 0;
+	// Move the circle left
+	public static final int LEFT = 1;
+	// Move the circle right
+	public static final int RIGHT = 1 << 1;
+	// Make the circle jump
+	public static final int JUMP = 1 << 2;
+
+	/**
+	 * Only holds constants
+	 */
+	private PlayerInput() {
+	}
+}
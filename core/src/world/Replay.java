@@ -0,0 +1,184 @@
+package world;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A recording of one run: the seed the world was created with and the buttons
+ * held on every tick. Because the world only depends on its seed and its input,
+ * playing the input back into a new GameWorld with the same seed repeats the
+ * run exactly, down to the tick the circle dies on.
+ *
+ * The input is packed into 3 bits per tick (45 bytes for every second of play
+ * at 120 ticks a second). The file is a small header followed by the packed
+ * bits:
+ *
+ * <pre>
+ * int   MAGIC
+ * byte  VERSION
+ * long  seed
+ * int   ticks per second
+ * int   number of ticks
+ * byte[] packed input, lowest bit first
+ * </pre>
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class Replay {
+	// Marks the start of a replay file ("FURP")
+	public static final int MAGIC = 0x46555250;
+	// Changed whenever the file layout or the way levels are generated changes,
+	// since an old recording would no longer play out the same
+	public static final byte VERSION = 2;
+	// How many bits each tick's input takes up; enough for LEFT, RIGHT and JUMP
+	public static final int BITS_PER_TICK = 3;
+	// The seed of the world that was recorded
+	private final long seed;
+	// The tick rate the run was recorded at
+	private final int tickRate;
+	// How many ticks were recorded
+	private final int ticks;
+	// The packed input
+	private final byte[] data;
+
+	/**
+	 * Replay constructor
+	 *
+	 * @param seed
+	 *            the seed of the world that was recorded
+	 * @param tickRate
+	 *            the tick rate the run was recorded at
+	 * @param ticks
+	 *            how many ticks were recorded
+	 * @param data
+	 *            the packed input; it is not copied
+	 */
+	public Replay(long seed, int tickRate, int ticks, byte[] data) {
+		if (data.length < bytesFor(ticks)) {
+			throw new IllegalArgumentException(ticks + " ticks don't fit in " + data.length + " bytes");
+		}
+		this.seed = seed;
+		this.tickRate = tickRate;
+		this.ticks = ticks;
+		this.data = data;
+	}
+
+	/**
+	 * Reads a replay written by write()
+	 *
+	 * @param in
+	 *            the stream to read from; it is not closed
+	 * @return the replay
+	 * @throws IOException
+	 *             if the stream can't be read or isn't a replay
+	 */
+	public static Replay read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		// Check that this is a replay we know how to read
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a replay file");
+		}
+		byte version = data.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported replay version " + version);
+		}
+		long seed = data.readLong();
+		int tickRate = data.readInt();
+		int ticks = data.readInt();
+		if (tickRate <= 0 || ticks < 0) {
+			throw new IOException("Corrupt replay header");
+		}
+		// Read the packed input
+		byte[] packed = new byte[bytesFor(ticks)];
+		data.readFully(packed);
+		return new Replay(seed, tickRate, ticks, packed);
+	}
+
+	/**
+	 * Writes the replay to a stream
+	 *
+	 * @param out
+	 *            the stream to write to; it is flushed but not closed
+	 * @throws IOException
+	 *             if the stream can't be written to
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeLong(seed);
+		data.writeInt(tickRate);
+		data.writeInt(ticks);
+		data.write(this.data, 0, bytesFor(ticks));
+		data.flush();
+	}
+
+	/**
+	 * Gets the buttons held on a tick
+	 *
+	 * @param tick
+	 *            the tick, 0 being the first one
+	 * @return the input for that tick, or PlayerInput.NONE once the recording is
+	 *         over
+	 */
+	public int getInput(int tick) {
+		if (tick < 0 || tick >= ticks) {
+			return PlayerInput.NONE;
+		}
+		// Collect the bits of the tick, which may be split between two bytes
+		int input = 0;
+		int bit = tick * BITS_PER_TICK;
+		for (int i = 0; i < BITS_PER_TICK; i++, bit++) {
+			input |= ((data[bit >> 3] >> (bit & 7)) & 1) << i;
+		}
+		return input;
+	}
+
+	/**
+	 * Creates a new world set up exactly like the recorded one
+	 *
+	 * @return the world
+	 */
+	public GameWorld newWorld() {
+		return new GameWorld(seed);
+	}
+
+	/**
+	 * @param ticks
+	 *            a number of ticks
+	 * @return how many bytes the input of that many ticks takes up
+	 */
+	static int bytesFor(int ticks) {
+		return (int) (((long) ticks * BITS_PER_TICK + 7) >> 3);
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the seed of the world that was recorded
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 *
+	 * @return the tick rate the run was recorded at
+	 */
+	public int getTickRate() {
+		return tickRate;
+	}
+
+	/**
+	 *
+	 * @return how many ticks were recorded
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+}
@@ -0,0 +1,78 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * Records the input of every tick of a run so it can be saved as a Replay. It
+ * only writes into a byte array that doubles in size when it fills up, so
+ * recording costs next to nothing while playing.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ReplayRecorder {
+	// Room for about 30 seconds at 120 ticks a second before growing
+	private static final int INITIAL_BYTES = 1350;
+	// The seed of the world being recorded
+	private final long seed;
+	// The tick rate of the world being recorded
+	private final int tickRate;
+	// The packed input recorded so far
+	private byte[] data;
+	// How many ticks have been recorded
+	private int ticks = 0;
+
+	/**
+	 * ReplayRecorder constructor
+	 *
+	 * @param seed
+	 *            the seed of the world being recorded
+	 * @param tickRate
+	 *            how many ticks the world runs each second
+	 */
+	public ReplayRecorder(long seed, int tickRate) {
+		this.seed = seed;
+		this.tickRate = tickRate;
+		data = new byte[INITIAL_BYTES];
+	}
+
+	/**
+	 * Adds the input of the next tick
+	 *
+	 * @param input
+	 *            the buttons held during the tick, see PlayerInput
+	 */
+	public void record(int input) {
+		// Make room for the new bits
+		if (Replay.bytesFor(ticks + 1) > data.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+		// Set the bits of the tick, which may be split between two bytes
+		int bit = ticks * Replay.BITS_PER_TICK;
+		for (int i = 0; i < Replay.BITS_PER_TICK; i++, bit++) {
+			if ((input & (1 << i)) != 0) {
+				data[bit >> 3] |= 1 << (bit & 7);
+			}
+		}
+		ticks++;
+	}
+
+	/**
+	 * Copies everything recorded so far into a replay
+	 *
+	 * @return the replay
+	 */
+	public Replay toReplay() {
+		return new Replay(seed, tickRate, ticks, Arrays.copyOf(data, Replay.bytesFor(ticks)));
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return how many ticks have been recorded
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+}
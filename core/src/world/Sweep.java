@@ -0,0 +1,154 @@
+package world;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Swept collision between two axis-aligned rectangles. Instead of moving the
+ * circle and then checking whether it ended up inside a block (which misses
+ * blocks it skipped over when it moves fast), the whole movement of the tick
+ * is tested at once. The result says how far along the movement the first
+ * contact happens and which side of the block was hit.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public final class Sweep {
+	// Contacts this close to the start of the movement still count, so a circle
+	// resting exactly on a block keeps touching it
+	private static final float EPSILON = 1e-4f;
+
+	/**
+	 * The result of a sweep. One instance is reused for every test so nothing is
+	 * allocated.
+	 */
+	public static class Hit {
+		// How far along the movement the contact happens, from 0 to 1
+		public float time;
+		// The side of the block that was hit: normalY = 1 means the top, normalX =
+		// -1 means the left side, and so on
+		public int normalX, normalY;
+		// How deep the rectangles overlap, only set by separate()
+		public float depth;
+
+		/**
+		 * Copies another hit into this one
+		 *
+		 * @param other
+		 *            the hit to copy
+		 */
+		public void set(Hit other) {
+			time = other.time;
+			normalX = other.normalX;
+			normalY = other.normalY;
+			depth = other.depth;
+		}
+	}
+
+	/**
+	 * Only holds static methods
+	 */
+	private Sweep() {
+	}
+
+	/**
+	 * Finds when a moving rectangle first touches a still one
+	 *
+	 * @param mover
+	 *            the rectangle at the start of the movement
+	 * @param dx
+	 *            how far it moves horizontally
+	 * @param dy
+	 *            how far it moves vertically
+	 * @param target
+	 *            the rectangle that doesn't move
+	 * @param out
+	 *            filled in with the time and side of the contact
+	 * @return true if they touch during the movement
+	 */
+	public static boolean sweep(Rectangle mover, float dx, float dy, Rectangle target, Hit out) {
+		float entryX, exitX, entryY, exitY;
+		// Work out when the rectangles start and stop overlapping horizontally
+		if (dx == 0) {
+			// Not moving sideways, so they either always or never overlap
+			if (mover.x >= target.x + target.width || mover.x + mover.width <= target.x) {
+				return false;
+			}
+			entryX = Float.NEGATIVE_INFINITY;
+			exitX = Float.POSITIVE_INFINITY;
+		} else if (dx > 0) {
+			entryX = (target.x - (mover.x + mover.width)) / dx;
+			exitX = (target.x + target.width - mover.x) / dx;
+		} else {
+			entryX = (target.x + target.width - mover.x) / dx;
+			exitX = (target.x - (mover.x + mover.width)) / dx;
+		}
+		// Do the same vertically
+		if (dy == 0) {
+			if (mover.y >= target.y + target.height || mover.y + mover.height <= target.y) {
+				return false;
+			}
+			entryY = Float.NEGATIVE_INFINITY;
+			exitY = Float.POSITIVE_INFINITY;
+		} else if (dy > 0) {
+			entryY = (target.y - (mover.y + mover.height)) / dy;
+			exitY = (target.y + target.height - mover.y) / dy;
+		} else {
+			entryY = (target.y + target.height - mover.y) / dy;
+			exitY = (target.y - (mover.y + mover.height)) / dy;
+		}
+		// They touch once they overlap on both axes
+		float entry = Math.max(entryX, entryY);
+		float exit = Math.min(exitX, exitY);
+		// No contact, a contact after this movement, or they already overlap
+		if (entry > exit || entry > 1 || entry < -EPSILON || exit <= 0) {
+			return false;
+		}
+		out.time = Math.max(entry, 0);
+		// The axis that started overlapping last is the side that was hit
+		if (entryX > entryY) {
+			out.normalX = dx > 0 ? -1 : 1;
+			out.normalY = 0;
+		} else {
+			out.normalX = 0;
+			out.normalY = dy > 0 ? -1 : 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the shortest way to push a rectangle out of another one it already
+	 * overlaps, e.g. after the circle wraps around the screen into a block
+	 *
+	 * @param mover
+	 *            the rectangle to push out
+	 * @param target
+	 *            the rectangle that doesn't move
+	 * @param out
+	 *            filled in with the side to push towards and how far
+	 * @return true if the rectangles overlap
+	 */
+	public static boolean separate(Rectangle mover, Rectangle target, Hit out) {
+		// How far the mover would have to go in each direction to get out
+		float left = mover.x + mover.width - target.x;
+		float right = target.x + target.width - mover.x;
+		float down = mover.y + mover.height - target.y;
+		float up = target.y + target.height - mover.y;
+		if (left <= 0 || right <= 0 || down <= 0 || up <= 0) {
+			return false;
+		}
+		out.time = 0;
+		// Push out along the smallest overlap
+		float depthX = Math.min(left, right);
+		float depthY = Math.min(down, up);
+		if (depthX < depthY) {
+			out.normalX = left < right ? -1 : 1;
+			out.normalY = 0;
+			out.depth = depthX;
+		} else {
+			out.normalX = 0;
+			out.normalY = up < down ? 1 : -1;
+			out.depth = depthY;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,53 @@
+package world;
+
+/**
+ * The numbers that decide how hard the game is. A GameWorld copies them when
+ * it is created, so changing a config afterwards doesn't affect worlds that
+ * already exist. The defaults are the values the game ships with; replays are
+ * always played back with them.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class WorldConfig {
+	// How fast the circle falls, in pixels per frame at 60 fps per second
+	public float gravity = 42;
+	// How fast the circle moves sideways, in pixels per second
+	public float horizontalSpeed = 95;
+	// The space between one row of blocks and the next
+	public int blockSpacing = 55;
+	// How fast the camera scrolls at the start, in pixels per frame at 60 fps
+	public double startSpeed = .5;
+	// How much faster the camera scrolls every ten seconds
+	public double speedGain = .1;
+	// How many ticks after leaving a block without jumping the circle can
+	// still jump, or -1 for no limit, which is how the game has always played
+	public int coyoteTicks = -1;
+
+	/**
+	 * WorldConfig constructor with the game's own values
+	 */
+	public WorldConfig() {
+	}
+
+	/**
+	 * WorldConfig constructor
+	 *
+	 * @param other
+	 *            the config to copy
+	 */
+	public WorldConfig(WorldConfig other) {
+		gravity = other.gravity;
+		horizontalSpeed = other.horizontalSpeed;
+		blockSpacing = other.blockSpacing;
+		startSpeed = other.startSpeed;
+		speedGain = other.speedGain;
+		coyoteTicks = other.coyoteTicks;
+	}
+
+	@Override
+	public String toString() {
+		return "gravity " + gravity + ", horizontalSpeed " + horizontalSpeed + ", blockSpacing " + blockSpacing
+				+ ", startSpeed " + startSpeed + ", speedGain " + speedGain + ", coyoteTicks " + coyoteTicks;
+	}
+}
@@ -0,0 +1,23 @@
+package world;
+
+/**
+ * Lets whoever is showing the GameWorld react to things that happen in it,
+ * e.g. PlayState plays sounds and switches to the game over screen.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public interface WorldListener {
+	/**
+	 * Called when the circle jumps
+	 */
+	void jumped();
+
+	/**
+	 * Called once when the circle goes past the dashes
+	 *
+	 * @param score
+	 *            the final score
+	 */
+	void gameOver(float score);
+}
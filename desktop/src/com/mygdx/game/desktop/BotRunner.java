@@ -0,0 +1,77 @@
+package com.mygdx.game.desktop;
+
+import com.mygdx.game.FirstGame;
+
+import bot.AutoPlayer;
+import world.GameWorld;
+
+/**
+ * Lets the AutoPlayer play game after game without a window for a set amount
+ * of time, for long unattended performance runs. Like ReplayRunner it doesn't
+ * start libgdx at all. Every game's score is printed as it ends, followed by
+ * how fast the simulation and the bot ran over the whole run. By default each
+ * decision may take as long as it needs, so a run plays the same on every
+ * machine; -budget gives each decision a limit in milliseconds like the game's
+ * own bot has.
+ *
+ * Usage: BotRunner [-minutes N] [-threads N] [-seed N] [-budget MS]
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class BotRunner {
+	public static void main(String[] arg) {
+		// How long to play for, how many threads the bot uses, the seed of the
+		// first game (each game after it uses the next seed) and each decision's
+		// time budget
+		double minutes = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = System.nanoTime();
+		float budget = 0;
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			if (arg[i].equals("-minutes")) {
+				minutes = Double.parseDouble(arg[i + 1]);
+			} else if (arg[i].equals("-threads")) {
+				threads = Integer.parseInt(arg[i + 1]);
+			} else if (arg[i].equals("-seed")) {
+				seed = Long.parseLong(arg[i + 1]);
+			} else if (arg[i].equals("-budget")) {
+				budget = Float.parseFloat(arg[i + 1]);
+			} else {
+				System.err.println("Usage: BotRunner [-minutes N] [-threads N] [-seed N] [-budget MS]");
+				System.exit(1);
+			}
+		}
+		AutoPlayer bot = new AutoPlayer(FirstGame.TIME_STEP, 12, 8, 480, threads, budget);
+		long start = System.nanoTime();
+		long end = start + (long) (minutes * 60e9);
+		long ticks = 0;
+		int games = 0;
+		float best = 0;
+		double total = 0;
+		while (System.nanoTime() < end) {
+			GameWorld world = new GameWorld(seed);
+			while (!world.isGameOver() && System.nanoTime() < end) {
+				world.tick(FirstGame.TIME_STEP, bot.nextInput(world));
+			}
+			ticks += world.getTicks();
+			// A game cut short by the time limit doesn't count
+			if (world.isGameOver()) {
+				games++;
+				total += world.getScore();
+				best = Math.max(best, world.getScore());
+				System.out.println("seed " + seed + ": " + world.getScore());
+			}
+			seed++;
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(games + " games in " + (float) seconds + " s, average score "
+				+ (float) (total / Math.max(games, 1)) + ", best " + best);
+		System.out.println("  " + (long) (ticks / seconds) + " game ticks a second, "
+				+ (long) (bot.getSimulatedTicks() / seconds) + " simulated by the bot on " + threads + " threads");
+		System.out.println("  " + bot.getDecisions() + " decisions taking " + (float) bot.getAverageDecisionMillis()
+				+ " ms on average (a tick is " + FirstGame.TIME_STEP * 1000 + " ms), " + bot.getCutRollouts()
+				+ " futures cut short");
+		bot.dispose();
+	}
+}
@@ -1,8 +1,15 @@
 package com.mygdx.game.desktop;
 
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.mygdx.game.FirstGame;
+
+import world.Replay;
 /**
  * Automatically generated by libgdx
  * 
@@ -10,11 +17,46 @@ import com.mygdx.game.FirstGame;
  *
  */
 public class DesktopLauncher {
-	public static void main (String[] arg) {
+	public static void main (String[] arg) throws IOException {
+		// Pass -replay <file> to watch a recording, e.g. replays/last.replay,
+		// -profile <file> to write the time spent in each phase of every frame to
+		// a CSV file, -bot to let a bot play game after game, -leaderboard <url>
+		// to send finished runs to a leaderboard (see LeaderboardStub), and
+		// -trackLeaks to report states that are never disposed
+		Replay replay = null;
+		String frameLog = null;
+		boolean autoPlay = false;
+		boolean trackLeaks = false;
+		URL leaderboard = null;
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("-bot")) {
+				autoPlay = true;
+			} else if (arg[i].equals("-trackLeaks")) {
+				trackLeaks = true;
+			} else if (arg[i].equals("-replay") && i + 1 < arg.length) {
+				replay = ReplayRunner.load(arg[++i]);
+			} else if (arg[i].equals("-profile") && i + 1 < arg.length) {
+				frameLog = arg[++i];
+			} else if (arg[i].equals("-leaderboard") && i + 1 < arg.length) {
+				leaderboard = new URL(arg[++i]);
+			} else {
+				System.err.println("Unknown option " + arg[i]);
+			}
+		}
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
 		config.width = FirstGame.WIDTH;
 		config.height = FirstGame.HEIGHT;
 		config.title = FirstGame.title;
-		new LwjglApplication(new FirstGame(), config);
+		// The game runs on fixed ticks, so rendering doesn't need to be capped; set
+		// this to e.g. 30 to throttle weak machines
+		config.foregroundFPS = 0;
+		FirstGame game = new FirstGame(replay);
+		game.setAutoPlay(autoPlay);
+		game.setLeaderboard(leaderboard);
+		game.setLeakTracking(trackLeaks);
+		if (frameLog != null) {
+			game.setFrameLog(new BufferedWriter(new FileWriter(frameLog)));
+		}
+		new LwjglApplication(game, config);
 	}
 }
@@ -0,0 +1,423 @@
+package com.mygdx.game.desktop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in for the online leaderboard, for trying the LeaderboardClient
+ * without a real service. It keeps everything in memory and prints every
+ * batch it receives. It can also fail requests on purpose, to watch the client
+ * back off and keep its queue, and the tests script its answers to check how
+ * the client reacts to each of them.
+ *
+ * POST /scores takes a batch in the format LeaderboardClient sends and ignores
+ * runs it has already seen. A batch holding a run marked with reject() is
+ * answered with 422. GET /scores answers with each player's best score, best
+ * first, as JSON.
+ *
+ * Start it and then run the game with -leaderboard
+ * http://localhost:8080/scores.
+ *
+ * Usage: LeaderboardStub [-port N] [-failRate F] [-retryAfter S] [-latency MS]
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class LeaderboardStub {
+	private static final String USAGE = "Usage: LeaderboardStub [-port N] [-failRate F] [-retryAfter S] [-latency MS]";
+
+	/**
+	 * What one POST looked like and how it was answered
+	 */
+	public static class Request {
+		// When it arrived, on the System.nanoTime() clock
+		public final long time;
+		// Its Content-Encoding header, or null
+		public final String encoding;
+		// The ids of the runs in it, or none if it couldn't be read
+		public final List<String> ids;
+		// The status it was answered with
+		public final int status;
+
+		Request(long time, String encoding, List<String> ids, int status) {
+			this.time = time;
+			this.encoding = encoding;
+			this.ids = ids;
+			this.status = status;
+		}
+	}
+
+	// Answers the requests
+	private final HttpServer server;
+	// Runs already received, by id
+	private final Set<String> seen = new HashSet<String>();
+	// Each player's best score
+	private final Map<String, Float> best = new HashMap<String, Float>();
+	// Every POST so far, oldest first
+	private final List<Request> requests = new ArrayList<Request>();
+	// Statuses to answer the next POSTs with, and the Retry-After to send with
+	// each, before anything else is looked at
+	private final LinkedList<int[]> scripted = new LinkedList<int[]>();
+	// Ids of runs the server calls invalid
+	private final Set<String> rejected = new HashSet<String>();
+	// Picks which requests fail
+	private final Random random = new Random();
+	// Fraction of requests answered with 503, the Retry-After sent with them in
+	// seconds (0 for none), and how long every answer is held back for
+	private float failRate = 0;
+	private int retryAfter = 0;
+	private int latency = 0;
+	// False to stop printing every request
+	private boolean verbose = true;
+
+	public static void main(String[] arg) throws IOException {
+		int port = 8080;
+		float failRate = 0;
+		int retryAfter = 0, latency = 0;
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			if (arg[i].equals("-port")) {
+				port = Integer.parseInt(arg[i + 1]);
+			} else if (arg[i].equals("-failRate")) {
+				failRate = Float.parseFloat(arg[i + 1]);
+			} else if (arg[i].equals("-retryAfter")) {
+				retryAfter = Integer.parseInt(arg[i + 1]);
+			} else if (arg[i].equals("-latency")) {
+				latency = Integer.parseInt(arg[i + 1]);
+			} else {
+				System.err.println(USAGE);
+				System.exit(1);
+			}
+		}
+		if (arg.length % 2 != 0) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		LeaderboardStub stub = new LeaderboardStub(port);
+		stub.setFailRate(failRate, retryAfter);
+		stub.setLatency(latency);
+		stub.start();
+		System.out.println("Leaderboard stub listening on " + stub.getUrl());
+	}
+
+	/**
+	 * LeaderboardStub constructor. Nothing is answered until start() is called.
+	 *
+	 * @param port
+	 *            the port to listen on, or 0 for any free one
+	 * @throws IOException
+	 *             if the port can't be opened
+	 */
+	public LeaderboardStub(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		// With no executor every request is handled on the server's one thread;
+		// the locking is only for whoever reads the results
+		server.createContext("/scores", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					handleScores(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts answering requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops answering requests and closes the port
+	 */
+	public void stop() {
+		server.stop(0);
+	}
+
+	/**
+	 * Answers one request to /scores
+	 *
+	 * @param exchange
+	 *            the request and its answer
+	 * @throws IOException
+	 *             if the connection fails
+	 */
+	private void handleScores(HttpExchange exchange) throws IOException {
+		long time = System.nanoTime();
+		int delay;
+		synchronized (this) {
+			delay = latency;
+		}
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		String method = exchange.getRequestMethod();
+		if (method.equals("GET")) {
+			reply(exchange, 200, leaders(), 0);
+			return;
+		}
+		if (!method.equals("POST")) {
+			reply(exchange, 405, "{\"error\":\"GET or POST only\"}", 0);
+			return;
+		}
+		// Read the batch, unzipping it if the client zipped it
+		String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+		JsonValue batch = null;
+		try {
+			InputStream in = exchange.getRequestBody();
+			if ("gzip".equalsIgnoreCase(encoding)) {
+				in = new GZIPInputStream(in);
+			}
+			batch = new JsonReader().parse(new String(readAll(in), "UTF-8"));
+		} catch (RuntimeException e) {
+			// Answered below
+		} catch (IOException e) {
+			// A body that says it is gzipped but isn't
+		}
+		List<String> ids = new ArrayList<String>();
+		String player = batch == null ? null : batch.getString("player", null);
+		JsonValue runs = batch == null ? null : batch.get("runs");
+		if (runs != null && runs.isArray()) {
+			for (JsonValue run = runs.child; run != null; run = run.next) {
+				ids.add(run.getString("id", ""));
+			}
+		}
+		synchronized (this) {
+			int status;
+			String answer;
+			int wait = 0;
+			if (!scripted.isEmpty()) {
+				int[] next = scripted.removeFirst();
+				status = next[0];
+				wait = next[1];
+				answer = "{\"error\":\"scripted\"}";
+			} else if (random.nextFloat() < failRate) {
+				status = 503;
+				wait = retryAfter;
+				answer = "{\"error\":\"try again later\"}";
+			} else if (player == null || runs == null || !runs.isArray()) {
+				status = 400;
+				answer = "{\"error\":\"missing player or runs\"}";
+			} else if (!Collections.disjoint(ids, rejected)) {
+				status = 422;
+				answer = "{\"error\":\"invalid run\"}";
+			} else {
+				status = 200;
+				answer = "{\"accepted\":" + accept(player, runs) + "}";
+			}
+			requests.add(new Request(time, encoding, ids, status));
+			if (verbose) {
+				System.out.println(ids.size() + " runs from " + player + ", answered " + status);
+			}
+			reply(exchange, status, answer, wait);
+		}
+	}
+
+	/**
+	 * Counts the runs of a batch that haven't been seen before
+	 *
+	 * @param player
+	 *            who sent them
+	 * @param runs
+	 *            the runs
+	 * @return how many were new
+	 */
+	private int accept(String player, JsonValue runs) {
+		int fresh = 0;
+		for (JsonValue run = runs.child; run != null; run = run.next) {
+			// A batch sent again because its answer was lost is only counted once
+			if (!seen.add(run.getString("id", ""))) {
+				continue;
+			}
+			fresh++;
+			float score = run.getFloat("score", 0);
+			Float old = best.get(player);
+			if (old == null || score > old) {
+				best.put(player, score);
+			}
+		}
+		return fresh;
+	}
+
+	/**
+	 *
+	 * @return every player's best score, best first, as JSON
+	 */
+	private synchronized String leaders() {
+		List<Map.Entry<String, Float>> entries = new ArrayList<Map.Entry<String, Float>>(best.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Float>>() {
+			@Override
+			public int compare(Map.Entry<String, Float> a, Map.Entry<String, Float> b) {
+				return Float.compare(b.getValue(), a.getValue());
+			}
+		});
+		StringBuilder json = new StringBuilder("[");
+		for (Map.Entry<String, Float> entry : entries) {
+			if (json.length() > 1) {
+				json.append(',');
+			}
+			String player = entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"");
+			json.append("{\"player\":\"").append(player).append("\",\"score\":").append(entry.getValue()).append('}');
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * Sends a JSON answer
+	 *
+	 * @param exchange
+	 *            the request to answer
+	 * @param status
+	 *            the HTTP status
+	 * @param json
+	 *            the body
+	 * @param retryAfter
+	 *            the Retry-After to send in seconds, or 0 for none
+	 * @throws IOException
+	 *             if the connection fails
+	 */
+	private static void reply(HttpExchange exchange, int status, String json, int retryAfter) throws IOException {
+		byte[] body = json.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		if (retryAfter > 0) {
+			exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfter));
+		}
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	/**
+	 *
+	 * @param in
+	 *            a stream
+	 * @return everything left in it
+	 * @throws IOException
+	 *             if it can't be read
+	 */
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] chunk = new byte[4096];
+		int n;
+		while ((n = in.read(chunk)) != -1) {
+			out.write(chunk, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Answers the next POST with a set status, before anything else
+	 *
+	 * @param status
+	 *            the HTTP status
+	 * @param retryAfter
+	 *            the Retry-After to send with it in seconds, or 0 for none
+	 */
+	public synchronized void answerNext(int status, int retryAfter) {
+		scripted.add(new int[] { status, retryAfter });
+	}
+
+	/**
+	 * Makes the server call a run invalid, answering any batch holding it with
+	 * 422
+	 *
+	 * @param id
+	 *            the run's id, as the client sends it
+	 */
+	public synchronized void reject(String id) {
+		rejected.add(id);
+	}
+
+	/**
+	 * Sets how often requests fail on purpose
+	 *
+	 * @param failRate
+	 *            the fraction of requests answered with 503
+	 * @param retryAfter
+	 *            the Retry-After sent with them in seconds, or 0 for none
+	 */
+	public synchronized void setFailRate(float failRate, int retryAfter) {
+		this.failRate = failRate;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Sets how long every answer is held back for
+	 *
+	 * @param latency
+	 *            the delay in milliseconds
+	 */
+	public synchronized void setLatency(int latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * Turns printing every request on or off
+	 *
+	 * @param verbose
+	 *            true to print them
+	 */
+	public synchronized void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/////// GETTERS ////////
+
+	/**
+	 *
+	 * @return the address to POST runs to
+	 */
+	public URL getUrl() {
+		try {
+			return new URL("http://localhost:" + server.getAddress().getPort() + "/scores");
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 *
+	 * @return a copy of every POST so far, oldest first
+	 */
+	public synchronized List<Request> getRequests() {
+		return new ArrayList<Request>(requests);
+	}
+
+	/**
+	 *
+	 * @return how many different runs have been accepted
+	 */
+	public synchronized int getAccepted() {
+		return seen.size();
+	}
+}
@@ -0,0 +1,89 @@
+package com.mygdx.game.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import world.GameWorld;
+import world.Replay;
+
+/**
+ * Plays replays back without a window, as fast as the CPU allows. The game's
+ * rules don't touch any graphics or audio, so this doesn't need to start
+ * libgdx at all. Each replay is played a number of times and the result and
+ * speed of the runs are printed, which is useful both for checking how a
+ * reported death happened and for timing the simulation on a fixed workload.
+ *
+ * Usage: ReplayRunner [-repeat N] file...
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class ReplayRunner {
+	public static void main(String[] arg) throws IOException {
+		// How many times each replay is played
+		int repeat = 1;
+		int first = 0;
+		if (arg.length >= 2 && arg[0].equals("-repeat")) {
+			repeat = Integer.parseInt(arg[1]);
+			first = 2;
+		}
+		if (first >= arg.length) {
+			System.err.println("Usage: ReplayRunner [-repeat N] file...");
+			System.exit(1);
+		}
+		for (int i = first; i < arg.length; i++) {
+			run(arg[i], load(arg[i]), repeat);
+		}
+	}
+
+	/**
+	 * Reads a replay file
+	 *
+	 * @param fileName
+	 *            the path of the file
+	 * @return the replay
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	static Replay load(String fileName) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(fileName));
+		try {
+			return Replay.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Plays a replay back a number of times and prints how it went
+	 *
+	 * @param fileName
+	 *            the name to print the results under
+	 * @param replay
+	 *            the replay to play
+	 * @param repeat
+	 *            how many times to play it
+	 */
+	private static void run(String fileName, Replay replay, int repeat) {
+		float dt = 1f / replay.getTickRate();
+		GameWorld world = null;
+		long start = System.nanoTime();
+		long ticks = 0;
+		for (int r = 0; r < repeat; r++) {
+			world = replay.newWorld();
+			// Feed the recorded input until the circle dies or the recording ends
+			while (!world.isGameOver() && world.getTicks() < replay.getTicks()) {
+				world.tick(dt, replay.getInput(world.getTicks()));
+			}
+			ticks += world.getTicks();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(fileName + ": seed " + replay.getSeed() + ", " + replay.getTicks() + " ticks recorded");
+		System.out.println("  " + (world.isGameOver() ? "game over" : "still alive") + " after " + world.getTicks()
+				+ " ticks with a score of " + world.getScore());
+		System.out.println("  " + repeat + " runs in " + (float) seconds + " s (" + (long) (ticks / seconds)
+				+ " ticks a second)");
+	}
+}
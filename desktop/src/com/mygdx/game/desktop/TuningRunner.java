@@ -0,0 +1,333 @@
+package com.mygdx.game.desktop;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.mygdx.game.FirstGame;
+
+import entities.TouchSystem;
+import sprites.BlockStore;
+import world.GameWorld;
+import world.PlayerInput;
+import world.WorldConfig;
+
+/**
+ * Plays thousands of games without a window for every combination of the
+ * difficulty settings it is given and prints how long they survived, so the
+ * settings can be tuned from numbers instead of by feel. Like ReplayRunner it
+ * doesn't start libgdx at all. The games are split across one thread per core.
+ *
+ * Every combination plays the same seeds, so differences between them come
+ * from the settings rather than from luck with the levels. Each setting takes
+ * a comma separated list of values, e.g. -gravity 38,42,46, and leaves the
+ * game's own value when it isn't given.
+ *
+ * The player is either "gap", a simple script that heads for the gap in the
+ * row it is standing on and jumps over hazards in its way, or "random", which
+ * holds a random move for a fifth of a second at a time. With -csv every
+ * game's survival time is also written to a file, one line per game.
+ *
+ * Usage: TuningRunner [-sessions N] [-policy gap|random] [-gravity LIST]
+ * [-speed LIST] [-spacing LIST] [-startSpeed LIST] [-speedGain LIST]
+ * [-maxSeconds N] [-threads N] [-seed N] [-csv FILE]
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class TuningRunner {
+	private static final String USAGE = "Usage: TuningRunner [-sessions N] [-policy gap|random] [-gravity LIST]"
+			+ " [-speed LIST] [-spacing LIST] [-startSpeed LIST] [-speedGain LIST] [-maxSeconds N] [-threads N]"
+			+ " [-seed N] [-csv FILE]";
+	// How many games one task plays before the next task is picked up
+	private static final int BATCH = 100;
+	// Moves the random player picks from, and how many ticks it holds each one
+	private static final int[] MOVES = { PlayerInput.NONE, PlayerInput.LEFT, PlayerInput.RIGHT, PlayerInput.JUMP,
+			PlayerInput.LEFT | PlayerInput.JUMP, PlayerInput.RIGHT | PlayerInput.JUMP };
+	private static final int HOLD_TICKS = 24;
+	// How close the gap player has to be to the middle of a gap to stop moving,
+	// and how far ahead it looks for hazards to jump over
+	private static final float GAP_TOLERANCE = 4;
+	private static final float HAZARD_LOOKAHEAD = 16;
+	// Width of each bar of the printed histograms, in seconds
+	private static final int BUCKET_SECONDS = 10;
+
+	// Settings shared by every game
+	private static int sessions = 1000;
+	private static boolean randomPolicy = false;
+	private static float maxSeconds = 300;
+	private static long baseSeed = 1;
+
+	public static void main(String[] arg) throws InterruptedException, FileNotFoundException {
+		// Each setting starts out as just the game's own value
+		WorldConfig defaults = new WorldConfig();
+		double[] gravity = { defaults.gravity };
+		double[] speed = { defaults.horizontalSpeed };
+		double[] spacing = { defaults.blockSpacing };
+		double[] startSpeed = { defaults.startSpeed };
+		double[] speedGain = { defaults.speedGain };
+		int threads = Runtime.getRuntime().availableProcessors();
+		String csv = null;
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			String value = arg[i + 1];
+			if (arg[i].equals("-sessions")) {
+				sessions = Integer.parseInt(value);
+			} else if (arg[i].equals("-policy") && (value.equals("gap") || value.equals("random"))) {
+				randomPolicy = value.equals("random");
+			} else if (arg[i].equals("-gravity")) {
+				gravity = parseList(value);
+			} else if (arg[i].equals("-speed")) {
+				speed = parseList(value);
+			} else if (arg[i].equals("-spacing")) {
+				spacing = parseList(value);
+			} else if (arg[i].equals("-startSpeed")) {
+				startSpeed = parseList(value);
+			} else if (arg[i].equals("-speedGain")) {
+				speedGain = parseList(value);
+			} else if (arg[i].equals("-maxSeconds")) {
+				maxSeconds = Float.parseFloat(value);
+			} else if (arg[i].equals("-threads")) {
+				threads = Integer.parseInt(value);
+			} else if (arg[i].equals("-seed")) {
+				baseSeed = Long.parseLong(value);
+			} else if (arg[i].equals("-csv")) {
+				csv = value;
+			} else {
+				System.err.println(USAGE);
+				System.exit(1);
+			}
+		}
+		if (arg.length % 2 != 0) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+
+		// Every combination of the settings
+		List<WorldConfig> configs = new ArrayList<WorldConfig>();
+		for (double g : gravity) {
+			for (double s : speed) {
+				for (double b : spacing) {
+					for (double start : startSpeed) {
+						for (double gain : speedGain) {
+							WorldConfig config = new WorldConfig();
+							config.gravity = (float) g;
+							config.horizontalSpeed = (float) s;
+							config.blockSpacing = (int) b;
+							config.startSpeed = start;
+							config.speedGain = gain;
+							configs.add(config);
+						}
+					}
+				}
+			}
+		}
+
+		// Split the games into batches and play them all on the pool
+		final float[][] survival = new float[configs.size()][sessions];
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int c = 0; c < configs.size(); c++) {
+			for (int first = 0; first < sessions; first += BATCH) {
+				tasks.add(new Batch(configs.get(c), survival[c], first, Math.min(first + BATCH, sessions)));
+			}
+		}
+		System.out.println(configs.size() + " configurations x " + sessions + " games with the "
+				+ (randomPolicy ? "random" : "gap") + " player on " + threads + " threads");
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		long ticks = 0;
+		try {
+			for (Future<Long> result : pool.invokeAll(tasks)) {
+				ticks += result.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("A game failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// Write every game's survival time before sorting them
+		if (csv != null) {
+			PrintStream out = new PrintStream(csv);
+			out.println("gravity,horizontalSpeed,blockSpacing,startSpeed,speedGain,seed,seconds");
+			for (int c = 0; c < configs.size(); c++) {
+				WorldConfig config = configs.get(c);
+				for (int s = 0; s < sessions; s++) {
+					out.println(config.gravity + "," + config.horizontalSpeed + "," + config.blockSpacing + ","
+							+ config.startSpeed + "," + config.speedGain + "," + (baseSeed + s) + "," + survival[c][s]);
+				}
+			}
+			out.close();
+		}
+		for (int c = 0; c < configs.size(); c++) {
+			report(configs.get(c), survival[c]);
+		}
+		System.out.println(configs.size() * sessions + " games in " + (float) seconds + " s, "
+				+ (long) (ticks / seconds) + " game ticks a second");
+	}
+
+	/**
+	 * Plays some of the games of one configuration on whichever thread picks it
+	 * up. The games write to their own slots of the survival array, so batches
+	 * never touch the same memory.
+	 */
+	private static class Batch implements Callable<Long> {
+		final WorldConfig config;
+		final float[] survival;
+		final int first, end;
+
+		Batch(WorldConfig config, float[] survival, int first, int end) {
+			this.config = config;
+			this.survival = survival;
+			this.first = first;
+			this.end = end;
+		}
+
+		@Override
+		public Long call() {
+			long ticks = 0;
+			int maxTicks = (int) (maxSeconds / FirstGame.TIME_STEP);
+			Random rand = new Random();
+			Rectangle ahead = new Rectangle();
+			int input = PlayerInput.NONE;
+			for (int s = first; s < end; s++) {
+				long seed = baseSeed + s;
+				GameWorld world = new GameWorld(seed, config);
+				rand.setSeed(seed);
+				while (!world.isGameOver() && world.getTicks() < maxTicks) {
+					if (randomPolicy) {
+						if (world.getTicks() % HOLD_TICKS == 0) {
+							input = MOVES[rand.nextInt(MOVES.length)];
+						}
+					} else {
+						input = followGap(world, ahead);
+					}
+					world.tick(FirstGame.TIME_STEP, input);
+				}
+				survival[s] = world.getScore();
+				ticks += world.getTicks();
+			}
+			return ticks;
+		}
+	}
+
+	/**
+	 * The scripted player. Heads for the middle of the gap in the row the circle
+	 * is standing on, and jumps when a hazard is just ahead.
+	 *
+	 * @param world
+	 *            the world being played
+	 * @param ahead
+	 *            a rectangle to reuse for the space in front of the circle
+	 * @return the buttons to hold, see PlayerInput
+	 */
+	private static int followGap(GameWorld world, Rectangle ahead) {
+		Rectangle circle = world.getCircle().getCircleRect();
+		BlockStore blocks = world.getBlocks();
+		// The row the circle is standing on or falling towards
+		int row = blocks.firstAbove(circle.y);
+		if (row == blocks.size()) {
+			return PlayerInput.NONE;
+		}
+		float gapStart = blocks.getLeftX(row) + BlockStore.WIDTH;
+		float target = (gapStart + blocks.getRightX(row)) / 2;
+		float middle = circle.x + circle.width / 2;
+		int input;
+		if (middle < target - GAP_TOLERANCE) {
+			input = PlayerInput.RIGHT;
+		} else if (middle > target + GAP_TOLERANCE) {
+			input = PlayerInput.LEFT;
+		} else {
+			return PlayerInput.NONE;
+		}
+		// Jump over a hazard in the way
+		ahead.set(input == PlayerInput.RIGHT ? circle.x : circle.x - HAZARD_LOOKAHEAD, circle.y,
+				circle.width + HAZARD_LOOKAHEAD, circle.height);
+		if (TouchSystem.firstTouching(world.getEntities(), ahead) >= 0) {
+			input |= PlayerInput.JUMP;
+		}
+		return input;
+	}
+
+	/**
+	 * Prints the distribution of survival times for one configuration
+	 *
+	 * @param config
+	 *            the configuration that was played
+	 * @param survival
+	 *            how long each game lasted, in seconds; sorted in place
+	 */
+	private static void report(WorldConfig config, float[] survival) {
+		Arrays.sort(survival);
+		int n = survival.length;
+		double total = 0;
+		int capped = 0;
+		for (float s : survival) {
+			total += s;
+			if (s >= maxSeconds - FirstGame.TIME_STEP) {
+				capped++;
+			}
+		}
+		System.out.println(config);
+		System.out.println(String.format("  mean %.1f  p10 %.1f  p25 %.1f  median %.1f  p75 %.1f  p90 %.1f  max %.1f"
+				+ "  reached %.0f s: %.1f%%", total / n, percentile(survival, .1), percentile(survival, .25),
+				percentile(survival, .5), percentile(survival, .75), percentile(survival, .9), survival[n - 1],
+				maxSeconds, 100.0 * capped / n));
+		// One bar per bucket, scaled so the fullest bucket is 40 characters wide
+		int[] buckets = new int[(int) (maxSeconds / BUCKET_SECONDS) + 1];
+		int fullest = 0;
+		for (float s : survival) {
+			int b = Math.min((int) (s / BUCKET_SECONDS), buckets.length - 1);
+			fullest = Math.max(fullest, ++buckets[b]);
+		}
+		int last = buckets.length - 1;
+		while (last > 0 && buckets[last] == 0) {
+			last--;
+		}
+		for (int b = 0; b <= last; b++) {
+			StringBuilder bar = new StringBuilder();
+			for (int i = 0; i < Math.round(40f * buckets[b] / fullest); i++) {
+				bar.append('#');
+			}
+			System.out.println(String.format("  %4d-%-4d s %6d %s", b * BUCKET_SECONDS, (b + 1) * BUCKET_SECONDS,
+					buckets[b], bar));
+		}
+	}
+
+	/**
+	 *
+	 * @param sorted
+	 *            values sorted from lowest to highest
+	 * @param p
+	 *            the fraction of values that should be below the result
+	 * @return the value at that fraction, by the nearest rank
+	 */
+	private static float percentile(float[] sorted, double p) {
+		int i = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+	}
+
+	/**
+	 *
+	 * @param list
+	 *            comma separated numbers
+	 * @return the numbers
+	 */
+	private static double[] parseList(String list) {
+		String[] parts = list.split(",");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Double.parseDouble(parts[i].trim());
+		}
+		return values;
+	}
+}
@@ -0,0 +1,303 @@
+package leaderboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.mygdx.game.desktop.LeaderboardStub;
+
+import stats.RunJournal;
+import stats.RunRecord;
+
+/**
+ * Runs a LeaderboardClient against a LeaderboardStub in the same JVM, so no
+ * real service or window is needed. The client is given a short backoff so
+ * retries happen within a test; the stub's answers are scripted to check how
+ * the client reacts to each kind of failure.
+ *
+ * @author Malyq McElroy
+ *
+ */
+public class LeaderboardClientTest {
+	// How long the first retry waits in these tests, in milliseconds
+	private static final int BACKOFF_MILLIS = 100;
+	// Longest any condition is waited for before the test fails
+	private static final long TIMEOUT_MILLIS = 15000;
+
+	/**
+	 * Something a test waits for
+	 */
+	private interface Condition {
+		boolean met();
+	}
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	// The server the client talks to
+	private LeaderboardStub stub;
+	// The client being tested, disposed after every test
+	private LeaderboardClient client;
+	// Where the client keeps its queue
+	private File queueFile;
+
+	@BeforeClass
+	public static void quietLogs() {
+		// The client only logs through Gdx.app, and there is no application in a
+		// test, so stand in one that ignores every call
+		Gdx.app = (Application) Proxy.newProxyInstance(Application.class.getClassLoader(),
+				new Class<?>[] { Application.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						return null;
+					}
+				});
+	}
+
+	@Before
+	public void startStub() throws IOException {
+		stub = new LeaderboardStub(0);
+		stub.setVerbose(false);
+		stub.start();
+		queueFile = new File(folder.getRoot(), "leaderboard.queue");
+	}
+
+	@After
+	public void stopStub() {
+		if (client != null) {
+			client.dispose();
+		}
+		stub.stop();
+	}
+
+	@Test
+	public void sendsRunsInBatchesOfAtMostBatchSize() throws InterruptedException {
+		client = newClient();
+		submit(0, 2 * LeaderboardClient.BATCH_SIZE + 20);
+		awaitAccepted(2 * LeaderboardClient.BATCH_SIZE + 20);
+		List<LeaderboardStub.Request> requests = stub.getRequests();
+		assertTrue(requests.size() >= 3);
+		for (LeaderboardStub.Request request : requests) {
+			assertTrue(request.ids.size() <= LeaderboardClient.BATCH_SIZE);
+		}
+		awaitWaiting(0);
+		assertEquals(2 * LeaderboardClient.BATCH_SIZE + 20, client.getSent());
+	}
+
+	@Test
+	public void sendsGzippedBodies() throws InterruptedException {
+		client = newClient();
+		submit(0, 3);
+		awaitAccepted(3);
+		for (LeaderboardStub.Request request : stub.getRequests()) {
+			assertEquals("gzip", request.encoding);
+			// The stub only finds the runs if the body really was gzipped JSON
+			assertFalse(request.ids.isEmpty());
+		}
+	}
+
+	@Test
+	public void waitsAsLongAsRetryAfterSaysOn429() throws InterruptedException {
+		checkRetryAfter(429);
+	}
+
+	@Test
+	public void waitsAsLongAsRetryAfterSaysOn503() throws InterruptedException {
+		checkRetryAfter(503);
+	}
+
+	@Test
+	public void keepsRetryingOnAuthAndNotFound() throws InterruptedException {
+		stub.answerNext(401, 0);
+		stub.answerNext(403, 0);
+		stub.answerNext(404, 0);
+		client = newClient();
+		submit(0, 5);
+		awaitAccepted(5);
+		List<LeaderboardStub.Request> requests = stub.getRequests();
+		assertEquals(4, requests.size());
+		// Every try sent the same runs; none were dropped along the way
+		for (LeaderboardStub.Request request : requests) {
+			assertEquals(5, request.ids.size());
+		}
+		awaitWaiting(0);
+	}
+
+	@Test
+	public void keepsEveryRunOnBadRequest() throws InterruptedException, IOException {
+		// A 400 says the server didn't understand us, not that a run is invalid
+		for (int i = 0; i < 10; i++) {
+			stub.answerNext(400, 0);
+		}
+		client = newClient();
+		submit(0, 5);
+		awaitRequests(4);
+		// Every try sent all of the runs; the batch was never split
+		for (LeaderboardStub.Request request : stub.getRequests()) {
+			assertEquals(400, request.status);
+			assertEquals(5, request.ids.size());
+		}
+		assertEquals(5, client.getWaiting());
+		assertEquals(0, client.getSent());
+		client.dispose();
+		client = null;
+		// and every run is still queued on disk
+		List<RunRecord> saved = new ArrayList<RunRecord>();
+		new RunJournal(queueFile).load(saved, new RunJournal.Totals());
+		assertEquals(5, saved.size());
+	}
+
+	@Test
+	public void dropsOnlyTheRunTheServerRejects() throws InterruptedException {
+		stub.reject(id(6));
+		client = newClient();
+		submit(0, 20);
+		awaitAccepted(19);
+		awaitWaiting(0);
+		assertEquals(19, stub.getAccepted());
+		assertEquals(19, client.getSent());
+		for (LeaderboardStub.Request request : stub.getRequests()) {
+			if (request.status == 200) {
+				assertFalse(request.ids.contains(id(6)));
+			}
+		}
+	}
+
+	@Test
+	public void keepsUnsentRunsAcrossARestart() throws InterruptedException, IOException {
+		// Nothing gets through during the first session
+		stub.setFailRate(1, 0);
+		client = newClient();
+		submit(0, 5);
+		awaitRequests(1);
+		client.dispose();
+		client = null;
+		// Everything is still queued on disk
+		List<RunRecord> saved = new ArrayList<RunRecord>();
+		new RunJournal(queueFile).load(saved, new RunJournal.Totals());
+		assertEquals(5, saved.size());
+		// and is sent once the server is back
+		stub.setFailRate(0, 0);
+		client = newClient();
+		awaitAccepted(5);
+		awaitWaiting(0);
+		assertEquals(5, client.getSent());
+	}
+
+	/**
+	 * Fails one request with Retry-After: 1 and checks the next one waited that
+	 * long, far longer than the client's own backoff would have
+	 *
+	 * @param status
+	 *            the status to fail the request with
+	 * @throws InterruptedException
+	 *             if the test is interrupted
+	 */
+	private void checkRetryAfter(int status) throws InterruptedException {
+		stub.answerNext(status, 1);
+		client = newClient();
+		submit(0, 1);
+		awaitAccepted(1);
+		List<LeaderboardStub.Request> requests = stub.getRequests();
+		assertEquals(2, requests.size());
+		assertEquals(status, requests.get(0).status);
+		long gapMillis = (requests.get(1).time - requests.get(0).time) / 1000000;
+		assertTrue("retried after " + gapMillis + " ms", gapMillis >= 1000);
+	}
+
+	/**
+	 *
+	 * @return a client that sends to the stub and keeps its queue in queueFile
+	 */
+	private LeaderboardClient newClient() {
+		return new LeaderboardClient(stub.getUrl(), "tester", queueFile, BACKOFF_MILLIS);
+	}
+
+	/**
+	 * Submits runs with consecutive end times
+	 *
+	 * @param first
+	 *            the number of the first run
+	 * @param count
+	 *            how many runs to submit
+	 */
+	private void submit(int first, int count) {
+		for (int i = first; i < first + count; i++) {
+			client.submit(new RunRecord(i, 7, i, 1, i, i * 120));
+		}
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            the number of a run made by submit()
+	 * @return the id the client sends it with
+	 */
+	private static String id(int i) {
+		return "7-" + i;
+	}
+
+	private void awaitAccepted(final int runs) throws InterruptedException {
+		await(runs + " runs accepted", new Condition() {
+			@Override
+			public boolean met() {
+				return stub.getAccepted() >= runs;
+			}
+		});
+	}
+
+	private void awaitRequests(final int requests) throws InterruptedException {
+		await(requests + " requests", new Condition() {
+			@Override
+			public boolean met() {
+				return stub.getRequests().size() >= requests;
+			}
+		});
+	}
+
+	private void awaitWaiting(final int runs) throws InterruptedException {
+		await(runs + " runs waiting", new Condition() {
+			@Override
+			public boolean met() {
+				return client.getWaiting() == runs;
+			}
+		});
+	}
+
+	/**
+	 * Waits for a condition, failing the test if it takes too long
+	 *
+	 * @param what
+	 *            what is waited for, for the failure message
+	 * @param condition
+	 *            the condition
+	 * @throws InterruptedException
+	 *             if the test is interrupted
+	 */
+	private static void await(String what, Condition condition) throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.met()) {
+			if (System.currentTimeMillis() > end) {
+				fail("Timed out waiting for " + what);
+			}
+			Thread.sleep(20);
+		}
+	}
+}